@@ -0,0 +1,72 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.Model.Books;
+import com.example.demo.Repository.BookRepository;
+import com.example.demo.Service.BookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Resolving a page worth of authors against the data.csv catalog in H2: one
+ * getBookByAuthor call per author, as the recommender did, against one batch lookup.
+ * The lookup cache is off so both sides reach the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchLookupBenchmark {
+
+    @Param({"10", "100"})
+    public int authorCount;
+
+    private ConfigurableApplicationContext context;
+
+    private BookServiceImpl bookService;
+
+    private List<String> authors;
+
+    private final Pageable page = PageRequest.of(0, 20,
+            Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id")));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(true, "--catalog.cache.enabled=false");
+        bookService = context.getBean(BookServiceImpl.class);
+        authors = context.getBean(BookRepository.class).findAll().stream()
+                .map(Books::getAuthor)
+                .distinct()
+                .limit(authorCount)
+                .collect(Collectors.toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<List<Books>> lookupOneByOne() {
+        List<List<Books>> result = new ArrayList<>(authors.size());
+        for (String author : authors) {
+            result.add(bookService.getBookByAuthor(author, page, null));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, List<Books>> lookupBatch() {
+        return bookService.getBooksByAuthors(authors, 20);
+    }
+}
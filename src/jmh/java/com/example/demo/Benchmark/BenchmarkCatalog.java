@@ -0,0 +1,113 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.DemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared setup for the benchmarks: the application context on an in-memory H2 database
+ * instead of MySQL (or on a scratch MySQL database for connector-level comparisons), and
+ * data.csv scaled up to an arbitrary row count.
+ */
+final class BenchmarkCatalog {
+
+    private BenchmarkCatalog() {
+    }
+
+    static ConfigurableApplicationContext start(boolean importOnStartup, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                // The Flyway migrations use MySQL syntax; let Hibernate build the H2 schema
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                // The import checkpoint table has no entity, so it comes from a script after Hibernate
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.schema-locations=classpath:benchmark-schema.sql",
+                "--spring.jpa.defer-datasource-initialization=true",
+                "--catalog.import.on-startup=" + importOnStartup,
+                // Benchmarks expect the catalog to be loaded when the context is up
+                "--catalog.import.background=false",
+                // Benchmarks that want a snapshot file pass their own path
+                "--catalog.snapshot.file="));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Starts against the MySQL database named by {@code CATALOG_BENCH_DB_URL} (with
+     * {@code CATALOG_BENCH_DB_USER} / {@code CATALOG_BENCH_DB_PASSWORD}), migrated by Flyway.
+     * Environment variables reach the forked benchmark JVMs unchanged. The database is truncated
+     * by the benchmarks, so never point this at real data.
+     */
+    static ConfigurableApplicationContext startMySql(String profile, String... extraArgs) {
+        String url = System.getenv("CATALOG_BENCH_DB_URL");
+        if (url == null || url.isEmpty()) {
+            throw new IllegalStateException("Set CATALOG_BENCH_DB_URL to a scratch MySQL database, e.g. jdbc:mysql://localhost:3306/catalog_bench");
+        }
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getenv().getOrDefault("CATALOG_BENCH_DB_USER", "root"),
+                "--spring.datasource.password=" + System.getenv().getOrDefault("CATALOG_BENCH_DB_PASSWORD", ""),
+                "--spring.profiles.active=" + ("default".equals(profile) ? "" : profile),
+                "--catalog.import.on-startup=false",
+                "--catalog.snapshot.file="));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    // Writes data.csv repeated until the file holds the requested number of rows
+    static Path scaledCsv(int rows) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("data.csv").getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            StringBuilder record = new StringBuilder();
+            boolean inQuotes = false;
+            while ((line = reader.readLine()) != null) {
+                record.append(line);
+                for (int i = 0; i < line.length(); i++) {
+                    if (line.charAt(i) == '"') {
+                        inQuotes = !inQuotes;
+                    }
+                }
+                if (inQuotes) {
+                    record.append('\n');
+                } else {
+                    lines.add(record.toString());
+                    record.setLength(0);
+                }
+            }
+        }
+
+        Path file = Files.createTempFile("catalog-" + rows, ".csv");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(lines.get(i % lines.size()));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.Model.Books;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the List&lt;Books&gt; bodies BooksController returns, using an
+ * ObjectMapper configured the way Spring Boot configures the one behind the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BooksSerializationBenchmark {
+
+    @Param({"20", "200", "5000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+
+    private List<Books> books;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(new Books((long) i, "How play can spark new ideas for your business " + i, "Martin Reeves",
+                    "Sep-21", "412000", "12000", "https://ted.com/talks/martin_reeves_how_play_can_spark_new_ideas_" + i, i % 50));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.Service.CatalogImporter;
+import com.example.demo.Service.ImportStats;
+import com.example.demo.Service.ParallelCsvParser;
+import com.opencsv.CSVReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Macrobenchmark of the startup import: data.csv scaled up to {@code rows} rows, upserted by
+ * {@link CatalogImporter#importChanges} on every iteration, read either by OpenCSV on one
+ * thread or, through {@link CatalogImporter#importIfChanged} with its checkpoint cleared, by
+ * the memory-mapped {@link ParallelCsvParser} as at startup. {@code table=empty} truncates the
+ * H2 table first, so every row is inserted; {@code table=known} keeps the rows of a first
+ * import, so every row is loaded, hashed and found unchanged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CatalogImportBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"empty", "known"})
+    public String table;
+
+    private ConfigurableApplicationContext context;
+
+    private CatalogImporter catalogImporter;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Path csv;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkCatalog.start(false);
+        catalogImporter = context.getBean(CatalogImporter.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        csv = BenchmarkCatalog.scaledCsv(rows);
+        if ("known".equals(table)) {
+            importCatalogParallel();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareTable() {
+        if ("empty".equals(table)) {
+            jdbcTemplate.execute("TRUNCATE TABLE books");
+        }
+        // Otherwise importIfChanged would skip the unchanged file
+        jdbcTemplate.execute("DELETE FROM catalog_import_checkpoint");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public ImportStats importCatalog() throws IOException {
+        try (CSVReader csvReader = new CSVReader(Files.newBufferedReader(csv, StandardCharsets.UTF_8))) {
+            return catalogImporter.importChanges(csvReader);
+        }
+    }
+
+    @Benchmark
+    public ImportStats importCatalogParallel() throws IOException {
+        return catalogImporter.importIfChanged("data.csv", new FileSystemResource(csv));
+    }
+}
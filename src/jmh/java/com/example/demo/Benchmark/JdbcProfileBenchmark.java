@@ -0,0 +1,92 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.Service.CatalogImporter;
+import com.example.demo.Service.ImportStats;
+import com.example.demo.Service.RatingCounter;
+import com.opencsv.CSVReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The write paths on MySQL with the stock settings against the {@code perf} profile
+ * (rewriteBatchedStatements, server-side statement cache, larger ordered batches):
+ * the CSV import into an empty table, and a rating flush touching every imported book.
+ *
+ * Needs a scratch MySQL database, see {@link BenchmarkCatalog#startMySql}:
+ * {@code CATALOG_BENCH_DB_URL=jdbc:mysql://localhost:3306/catalog_bench ./gradlew jmh -PjmhIncludes=JdbcProfileBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class JdbcProfileBenchmark {
+
+    @Param({"default", "perf"})
+    public String profile;
+
+    @Param({"100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private CatalogImporter catalogImporter;
+
+    private RatingCounter ratingCounter;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Path csv;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Keep the scheduled flush out of the way so flushRatings writes every pending delta
+        context = BenchmarkCatalog.startMySql(profile, "--catalog.rating.flush-interval-ms=3600000");
+        catalogImporter = context.getBean(CatalogImporter.class);
+        ratingCounter = context.getBean(RatingCounter.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        csv = BenchmarkCatalog.scaledCsv(rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepare(BenchmarkParams params) throws IOException {
+        jdbcTemplate.execute("TRUNCATE TABLE books");
+        if (!params.getBenchmark().endsWith("flushRatings")) {
+            return;
+        }
+        // One pending increment for every book, all written by a single flush
+        try (CSVReader csvReader = new CSVReader(Files.newBufferedReader(csv, StandardCharsets.UTF_8))) {
+            catalogImporter.importChanges(csvReader);
+        }
+        for (Long id : jdbcTemplate.queryForList("SELECT id FROM books", Long.class)) {
+            ratingCounter.increment(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public int flushRatings() {
+        return ratingCounter.flush();
+    }
+
+    @Benchmark
+    public ImportStats importCatalog() throws IOException {
+        try (CSVReader csvReader = new CSVReader(Files.newBufferedReader(csv, StandardCharsets.UTF_8))) {
+            return catalogImporter.importChanges(csvReader);
+        }
+    }
+}
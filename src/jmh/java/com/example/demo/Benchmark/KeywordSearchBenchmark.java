@@ -0,0 +1,82 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.Model.Books;
+import com.example.demo.Repository.Bm25SearchIndex;
+import com.example.demo.Repository.BookRepositoryImpl;
+import com.example.demo.Repository.FuzzyTitleIndex;
+import com.example.demo.Repository.KeywordTokenizer;
+import com.example.demo.Service.BookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword search hot path: tokenizing the search text and building and running the
+ * findByKeywords criteria query against the data.csv catalog in H2, and the top-20 BM25
+ * ranking of the same query from the in-process index, plus the typo-tolerant title match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeywordSearchBenchmark {
+
+    @Param({"climate", "how to change the world", "the"})
+    public String query;
+
+    private ConfigurableApplicationContext context;
+
+    private BookRepositoryImpl bookRepositoryImpl;
+
+    private Bm25SearchIndex searchIndex;
+
+    private FuzzyTitleIndex fuzzyTitleIndex;
+
+    private List<String> keywords;
+
+    private final Sort sort = Sort.by(Sort.Direction.DESC, "rating");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(true);
+        bookRepositoryImpl = context.getBean(BookRepositoryImpl.class);
+        searchIndex = context.getBean(Bm25SearchIndex.class);
+        fuzzyTitleIndex = context.getBean(FuzzyTitleIndex.class);
+        keywords = BookServiceImpl.keywordsOf(query);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<String> splitKeywords() {
+        return BookServiceImpl.keywordsOf(query);
+    }
+
+    @Benchmark
+    public List<String> tokenizeKeywords() {
+        return KeywordTokenizer.tokenize(query);
+    }
+
+    @Benchmark
+    public List<Books> findByKeywords() {
+        return bookRepositoryImpl.findByKeywords(keywords, sort);
+    }
+
+    @Benchmark
+    public List<Books> searchByRelevance() {
+        return searchIndex.search(keywords, 0, 20);
+    }
+
+    @Benchmark
+    public List<Books> searchFuzzyTitle() {
+        return fuzzyTitleIndex.search(query, 0, 20);
+    }
+}
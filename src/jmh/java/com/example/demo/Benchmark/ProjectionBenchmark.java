@@ -0,0 +1,70 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.Model.Books;
+import com.example.demo.Repository.BookRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same title search read as managed entities and as constructor-expression Books, each in
+ * its own EntityManager like one request. Run with {@code -prof gc} to compare the allocation
+ * rate as well as the latency: the entity path also pays for the persistence context entries,
+ * their loaded-state snapshots and the dirty check at commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private static final String WHERE = " WHERE b.title LIKE :keyword ORDER BY b.rating DESC, b.id DESC";
+
+    @Param({"%climate%", "%the%", "%"})
+    public String keyword;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(true);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Books> managedEntities() {
+        return search("SELECT b FROM Books b" + WHERE);
+    }
+
+    @Benchmark
+    public List<Books> constructorExpression() {
+        return search(BookRepository.DETACHED_BOOKS + WHERE);
+    }
+
+    private List<Books> search(String jpql) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            List<Books> books = entityManager.createQuery(jpql, Books.class)
+                    .setParameter("keyword", keyword)
+                    .getResultList();
+            entityManager.getTransaction().commit();
+            return books;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
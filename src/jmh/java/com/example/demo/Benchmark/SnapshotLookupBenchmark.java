@@ -0,0 +1,112 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.Model.AuthorKey;
+import com.example.demo.Model.Books;
+import com.example.demo.Repository.BookRepository;
+import com.example.demo.Repository.CatalogSnapshot;
+import com.example.demo.Repository.CatalogSnapshotStore;
+import com.example.demo.Service.RatingCounter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of an author's books from the in-memory catalog snapshot against the same page
+ * from the database (H2 here), plus the time to build a snapshot of the data.csv catalog,
+ * for both snapshot layouts. With {@code -prof gc} the off-heap layout shows the cost of
+ * decoding rows from columns instead of copying objects. {@code loadSnapshotFile} is the
+ * startup path with a snapshot file: map and CRC-check it, against {@code rebuildFromDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotLookupBenchmark {
+
+    @Param({"heap", "off-heap"})
+    public String layout;
+
+    private ConfigurableApplicationContext context;
+
+    private BookRepository bookRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private RatingCounter ratingCounter;
+
+    private CatalogSnapshot snapshot;
+
+    private List<Books> catalog;
+
+    private String author;
+
+    private Path file;
+
+    private final Pageable page = PageRequest.of(0, 20,
+            Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id")));
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkCatalog.start(true);
+        bookRepository = context.getBean(BookRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ratingCounter = context.getBean(RatingCounter.class);
+        catalog = bookRepository.findAll();
+        snapshot = buildSnapshot();
+        author = catalog.get(catalog.size() / 2).getAuthor();
+
+        file = Files.createTempFile("catalog-snapshot", ".bin");
+        CatalogSnapshotStore store = new CatalogSnapshotStore(bookRepository, jdbcTemplate, ratingCounter, event -> { }, true, layout, file.toString());
+        store.rebuild();
+        store.save();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<Books> authorFromSnapshot() {
+        return snapshot.byAuthor(author, page, null);
+    }
+
+    @Benchmark
+    public List<Books> authorFromDatabase() {
+        return bookRepository.findByAuthorKey(AuthorKey.of(author), page);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CatalogSnapshot buildSnapshot() {
+        return "off-heap".equals(layout) ? CatalogSnapshot.offHeap(catalog) : CatalogSnapshot.build(catalog);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CatalogSnapshot loadSnapshotFile() {
+        CatalogSnapshotStore store = new CatalogSnapshotStore(bookRepository, jdbcTemplate, ratingCounter, event -> { }, true, layout, file.toString());
+        store.load();
+        return store.current();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CatalogSnapshot rebuildFromDatabase() {
+        CatalogSnapshotStore store = new CatalogSnapshotStore(bookRepository, jdbcTemplate, ratingCounter, event -> { }, true, layout, "");
+        store.rebuild();
+        return store.current();
+    }
+}
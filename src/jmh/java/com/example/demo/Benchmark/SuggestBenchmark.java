@@ -0,0 +1,45 @@
+package com.example.demo.Benchmark;
+
+import com.example.demo.Model.Suggestion;
+import com.example.demo.Service.SuggestionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /suggest lookups against the data.csv catalog, one call per keystroke of a typed query.
+ * Run with {@code -prof gc} or SampleTime mode to check the tail stays well under a millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestBenchmark {
+
+    @Param({"c", "cli", "climate ch", "how to"})
+    public String prefix;
+
+    private ConfigurableApplicationContext context;
+
+    private SuggestionService suggestionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(true);
+        suggestionService = context.getBean(SuggestionService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Suggestion> suggest() {
+        return suggestionService.suggest(prefix, 10);
+    }
+}
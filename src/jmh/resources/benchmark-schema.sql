@@ -0,0 +1,8 @@
+-- H2 stand-in for the checkpoint table of V2__catalog_import_checkpoints.sql, which Hibernate does not create
+CREATE TABLE IF NOT EXISTS catalog_import_checkpoint (
+    source       VARCHAR(255) NOT NULL,
+    checksum     CHAR(64)     NOT NULL,
+    rows_read    BIGINT       NOT NULL,
+    completed_at TIMESTAMP    NOT NULL,
+    PRIMARY KEY (source)
+);
@@ -0,0 +1,36 @@
+package com.example.demo.Component;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after the catalog in the database has been (re)loaded, so in-memory
+ * search structures can rebuild themselves from the repository.
+ */
+public class CatalogChangedEvent extends ApplicationEvent {
+
+    private final long rows;
+
+    private final String sourceChecksum;
+
+    public CatalogChangedEvent(Object source, long rows) {
+        this(source, rows, null);
+    }
+
+    /**
+     * @param sourceChecksum fingerprint of the file the catalog now matches, or null when the
+     *                       rows did not come from a checkpointed import
+     */
+    public CatalogChangedEvent(Object source, long rows, String sourceChecksum) {
+        super(source);
+        this.rows = rows;
+        this.sourceChecksum = sourceChecksum;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public String getSourceChecksum() {
+        return sourceChecksum;
+    }
+}
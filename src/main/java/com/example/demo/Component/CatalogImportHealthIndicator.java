@@ -0,0 +1,39 @@
+package com.example.demo.Component;
+
+import com.example.demo.Service.CatalogImportProgress;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Part of the readiness group ({@code /actuator/health/readiness}): OUT_OF_SERVICE while the
+ * background startup import is below its ready threshold or the rows written so far are not
+ * yet loaded into the search indexes, DOWN if it failed. Liveness is
+ * unaffected, so a long import is never mistaken for a hung process.
+ */
+@Component
+public class CatalogImportHealthIndicator implements HealthIndicator {
+
+    private final CatalogImportProgress progress;
+
+    public CatalogImportHealthIndicator(CatalogImportProgress progress) {
+        this.progress = progress;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health;
+        if (progress.isReady()) {
+            health = Health.up();
+        } else if (progress.getState() == CatalogImportProgress.State.FAILED) {
+            health = Health.down().withDetail("error", progress.getError());
+        } else {
+            health = Health.outOfService();
+        }
+        return health.withDetail("state", progress.getState())
+                .withDetail("rows", progress.getRows())
+                .withDetail("totalRows", progress.getTotalRows())
+                .withDetail("rowsPerSecond", progress.getRowsPerSecond())
+                .build();
+    }
+}
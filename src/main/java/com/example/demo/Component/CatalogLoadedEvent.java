@@ -0,0 +1,22 @@
+package com.example.demo.Component;
+
+import com.example.demo.Repository.CatalogSnapshot;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after a new {@link CatalogSnapshot} has been loaded from the database, so the
+ * search indexes can rebuild from it instead of each reading the catalog again.
+ */
+public class CatalogLoadedEvent extends ApplicationEvent {
+
+    private final CatalogSnapshot snapshot;
+
+    public CatalogLoadedEvent(Object source, CatalogSnapshot snapshot) {
+        super(source);
+        this.snapshot = snapshot;
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
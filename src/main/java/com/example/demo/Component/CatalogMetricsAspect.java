@@ -0,0 +1,68 @@
+package com.example.demo.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Times every repository and service call and counts the rows they return.
+ *
+ * Meters: {@code catalog.repository} and {@code catalog.service} timers tagged with the
+ * method name, and {@code catalog.repository.rows} / {@code catalog.service.rows} counters.
+ * Percentiles are configured under {@code management.metrics.distribution}.
+ */
+@Aspect
+@Component
+public class CatalogMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    public CatalogMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("target(com.example.demo.Repository.BookRepository) || target(com.example.demo.Repository.BookRepositoryCustom)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("catalog.repository", joinPoint);
+    }
+
+    @Around("target(com.example.demo.Service.BookServiceInterface)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("catalog.service", joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            int rows = rowsOf(result);
+            if (rows > 0) {
+                meterRegistry.counter(name + ".rows", "method", method).increment(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(name, "method", method, "outcome", outcome));
+        }
+    }
+
+    private static int rowsOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.Component;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Caps concurrent repository calls at the connection pool size. With virtual threads the
+ * number of in-flight requests is no longer bounded by Tomcat's pool, so callers queue here
+ * in FIFO order instead of piling up inside Hikari. A call that waits longer than
+ * {@code catalog.execution.db-permit-timeout} fails with 503.
+ *
+ * Permits are per thread: a repository that delegates to another repository (the JPA
+ * repository calling its criteria fragment) holds a single permit. A call that returns a
+ * {@link Stream} keeps reading from its cursor afterwards, so its permit is released only
+ * when the stream is closed.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "catalog.execution.virtual-threads", havingValue = "true")
+public class DatabasePermitAspect {
+
+    private final Semaphore permits;
+
+    private final long timeoutNanos;
+
+    private final ThreadLocal<Boolean> holding = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public DatabasePermitAspect(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                @Value("${catalog.execution.db-permit-timeout:5s}") Duration timeout) {
+        this.permits = new Semaphore(Math.max(1, poolSize), true);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    // The in-memory index answers keyword searches without touching the database
+    @Around("(target(com.example.demo.Repository.BookRepository) || target(com.example.demo.Repository.BookRepositoryCustom))"
+            + " && !target(com.example.demo.Repository.InvertedIndexBookRepository)")
+    public Object withPermit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (holding.get()) {
+            return joinPoint.proceed();
+        }
+        if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent catalog queries");
+        }
+        holding.set(Boolean.TRUE);
+        boolean release = true;
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Stream) {
+                release = false;
+                return ((Stream<?>) result).onClose(permits::release);
+            }
+            return result;
+        } finally {
+            holding.set(Boolean.FALSE);
+            if (release) {
+                permits.release();
+            }
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
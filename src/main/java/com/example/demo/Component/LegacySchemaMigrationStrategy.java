@@ -0,0 +1,73 @@
+package com.example.demo.Component;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Upgrade path from the schema Hibernate used to create with {@code ddl-auto=create}: a
+ * {@code books} table with text columns and a {@code hibernate_sequence}, and no Flyway
+ * history. V1 cannot run over it, and baselining would leave the old column types in place.
+ *
+ * That schema was dropped and refilled from {@code data.csv} on every start, so it holds
+ * nothing the startup import does not restore. When Flyway has applied no migration yet and
+ * such a {@code books} table exists, the two tables are dropped before migrating. With
+ * {@code catalog.schema.drop-legacy=false} startup fails instead, and they have to be dropped
+ * by hand.
+ */
+@Component
+public class LegacySchemaMigrationStrategy implements FlywayMigrationStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacySchemaMigrationStrategy.class);
+
+    static final String DROP_SQL = "DROP TABLE IF EXISTS books, hibernate_sequence";
+
+    private final boolean dropLegacy;
+
+    public LegacySchemaMigrationStrategy(@Value("${catalog.schema.drop-legacy:true}") boolean dropLegacy) {
+        this.dropLegacy = dropLegacy;
+    }
+
+    @Override
+    public void migrate(Flyway flyway) {
+        if (flyway.info().applied().length == 0) {
+            dropLegacySchema(flyway.getConfiguration().getDataSource());
+        }
+        flyway.migrate();
+    }
+
+    private void dropLegacySchema(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!hasTable(connection, "books")) {
+                return;
+            }
+            if (!dropLegacy) {
+                throw new IllegalStateException("The books table predates the Flyway migrations; drop the books and "
+                        + "hibernate_sequence tables or set catalog.schema.drop-legacy=true");
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(DROP_SQL);
+            }
+            log.warn("Dropped the books table created by ddl-auto; the startup import refills it");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not check for a schema created by ddl-auto", e);
+        }
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.Component;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Published after a batch of buffered rating increments has been written to the database,
+ * so in-memory copies of the catalog can add the same deltas instead of re-reading the rows.
+ */
+public class RatingsFlushedEvent extends ApplicationEvent {
+
+    private final Map<Long, Long> deltas;
+
+    /**
+     * @param deltas rating increase per book id, as written
+     */
+    public RatingsFlushedEvent(Object source, Map<Long, Long> deltas) {
+        super(source);
+        this.deltas = Collections.unmodifiableMap(deltas);
+    }
+
+    public Map<Long, Long> getDeltas() {
+        return deltas;
+    }
+}
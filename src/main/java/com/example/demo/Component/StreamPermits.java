@@ -0,0 +1,40 @@
+package com.example.demo.Component;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps concurrent NDJSON streams. A stream holds its database connection until the last row is
+ * written, however slowly the client reads, so without a cap a handful of slow clients could
+ * take the whole pool. {@code catalog.stream.max-concurrent} should stay well below
+ * {@code spring.datasource.hikari.maximum-pool-size}; a stream beyond it fails at once with 503
+ * rather than queueing, and {@code spring.mvc.async.request-timeout} bounds how long one lasts.
+ */
+@Component
+public class StreamPermits {
+
+    private final Semaphore permits;
+
+    public StreamPermits(@Value("${catalog.stream.max-concurrent:2}") int maxConcurrent) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    // Pair with release() once the stream has finished, failed or been abandoned
+    public void acquire() {
+        if (!permits.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent streams");
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
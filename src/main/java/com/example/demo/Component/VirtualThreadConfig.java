@@ -0,0 +1,46 @@
+package com.example.demo.Component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves Tomcat requests on virtual threads when {@code catalog.execution.virtual-threads=true}.
+ *
+ * The build still targets Java 11, so the executor is looked up reflectively; it is only
+ * available when the application runs on JDK 21 or later, otherwise Tomcat keeps its
+ * platform thread pool. Database calls are bounded separately by {@link DatabasePermitAspect}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalog.execution.virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        Optional<ExecutorService> executor = virtualThreadExecutor();
+        if (executor.isEmpty()) {
+            log.warn("Virtual threads need JDK 21+, running on {}; keeping the platform thread pool",
+                    System.getProperty("java.version"));
+            return protocolHandler -> { };
+        }
+        log.info("Serving requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor.get());
+    }
+
+    static Optional<ExecutorService> virtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -1,28 +1,66 @@
 package com.example.demo.Controller;
 
+import com.example.demo.Component.StreamPermits;
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.BookLookupRequest;
+import com.example.demo.Model.BookLookupResult;
 import com.example.demo.Model.Books;
 import com.example.demo.Service.BookServiceInterface;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
 public class BooksController {
 
+    // Upper bound for the size request parameter, so no request can materialize the whole catalog
+    static final int MAX_PAGE_SIZE = 200;
+
+    // Upper bound for the number of authors plus titles in one batch lookup
+    static final int MAX_LOOKUP_KEYS = 1000;
+
+    // Newline-delimited JSON: one book per line, written while the rows are read
+    static final String NDJSON = "application/x-ndjson";
+
     private final BookServiceInterface bookServiceInterface;
 
+    private final ObjectMapper objectMapper;
+
+    private final StreamPermits streamPermits;
+
     @Autowired
-    public BooksController(BookServiceInterface bookServiceInterface) {
+    public BooksController(BookServiceInterface bookServiceInterface, ObjectMapper objectMapper, StreamPermits streamPermits) {
 
         this.bookServiceInterface = bookServiceInterface;
+        this.objectMapper = objectMapper;
+        this.streamPermits = streamPermits;
     }
 
     @GetMapping("/book/{author}")
-    public Map<String, Books> getSpecificAuthor(@PathVariable String author){
-        List<Books> booksList = bookServiceInterface.getBookByAuthor(author);
+    public Map<String, Books> getSpecificAuthor(@PathVariable String author,
+                                                @RequestParam(defaultValue = "0") int page,
+                                                @RequestParam(defaultValue = "20") int size,
+                                                @RequestParam(defaultValue = "rating") String sort,
+                                                @RequestParam(required = false) BookCursor after){
+        List<Books> booksList = bookServiceInterface.getBookByAuthor(author, pageOf(page, size, sort, after), after);
 
         LinkedHashMap<String, Books> booksMap = booksList.stream()
                 .collect(Collectors.toMap(Books::getTitle, Function.identity(),
@@ -30,26 +68,123 @@ public class BooksController {
         return booksMap;
     }
 
+    // Accept: application/x-ndjson streams every book by the author instead of one page
+    @GetMapping(value = "/book/{author}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamSpecificAuthor(@PathVariable String author,
+                                                                      @RequestParam(defaultValue = "rating") String sort) {
+        Sort order = sortOf(sort, SORT_PROPERTIES);
+        return ndjson(sink -> bookServiceInterface.streamBookByAuthor(author, order, sink));
+    }
+
     @GetMapping("/book/title/{title}")
-    public List<Books> getSpecificTitle(@PathVariable String title) {
-        List<Books> booksList = bookServiceInterface.getBookByExactTitle(title);
+    public List<Books> getSpecificTitle(@PathVariable String title,
+                                        @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = "20") int size,
+                                        @RequestParam(defaultValue = "rating") String sort,
+                                        @RequestParam(required = false) BookCursor after) {
+        List<Books> booksList = bookServiceInterface.getBookByExactTitle(title, pageOf(page, size, sort, after), after);
         return booksList;
     }
 
 
 
     @GetMapping("/books/{title}")
-    public List<Books> getBooksByTitle(@PathVariable String title) {
-        List<Books> exactMatchBooks = bookServiceInterface.getBookByExactTitle(title);
-        List<Books> keywordMatchBooks = bookServiceInterface.getBookByKeyword(title);
-
-        // Combine the sorted lists
-        List<Books> booksList = new ArrayList<>();
-        booksList.addAll(exactMatchBooks);
-        booksList.addAll(keywordMatchBooks);
+    public List<Books> getBooksByTitle(@PathVariable String title,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "20") int size,
+                                       @RequestParam(defaultValue = "rating") String sort,
+                                       @RequestParam(required = false) BookCursor after) {
+        // Exact and keyword matches come back from one query, exact matches first and without duplicates
+        List<Books> booksList = bookServiceInterface.searchByTitle(title, pageOf(page, size, sort, after, SEARCH_SORT_PROPERTIES), after);
 
         return booksList;
     }
 
+    // Accept: application/x-ndjson streams every exact and keyword match instead of one page
+    @GetMapping(value = "/books/{title}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBooksByTitle(@PathVariable String title,
+                                                                    @RequestParam(defaultValue = "rating") String sort) {
+        Sort order = sortOf(sort, SORT_PROPERTIES);
+        return ndjson(sink -> bookServiceInterface.streamByTitle(title, order, sink));
+    }
+
+    // Tolerates typos in the title words, e.g. "climat acton"; results are ranked by closeness, so there is no sort
+    @GetMapping("/books/fuzzy/{title}")
+    public List<Books> getBooksByFuzzyTitle(@PathVariable String title,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
+        return bookServiceInterface.getBookByFuzzyTitle(title,
+                PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE)));
+    }
+
+    // Resolves many authors and exact titles in one request; size caps the books returned per key
+    @PostMapping("/books/lookup")
+    public BookLookupResult lookupBooks(@RequestBody BookLookupRequest request,
+                                        @RequestParam(defaultValue = "20") int size) {
+        if (request.getAuthors().size() + request.getTitles().size() > MAX_LOOKUP_KEYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_LOOKUP_KEYS + " authors and titles per lookup");
+        }
+        int limit = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        return new BookLookupResult(bookServiceInterface.getBooksByAuthors(request.getAuthors(), limit),
+                bookServiceInterface.getBooksByExactTitles(request.getTitles(), limit));
+    }
+
+    // Sorts a client can ask for; each is descending with the id as tie-breaker
+    static final Set<String> SORT_PROPERTIES = Set.of("rating", "views", "likes", "date");
+
+    // Keyword search can also be ranked by BM25 relevance blended with rating
+    static final Set<String> SEARCH_SORT_PROPERTIES = Set.of("rating", "views", "likes", "date", "relevance");
+
+    static Pageable pageOf(int page, int size, String sort, BookCursor after) {
+        return pageOf(page, size, sort, after, SORT_PROPERTIES);
+    }
+
+    static Pageable pageOf(int page, int size, String sort, BookCursor after, Set<String> sortProperties) {
+        Sort order = sortOf(sort, sortProperties);
+        // Keyset cursors are (rating, id) positions, so they only continue the rating order
+        if (after != null && !"rating".equals(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The after cursor requires sort=rating");
+        }
+        return PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE), order);
+    }
+
+    static Sort sortOf(String sort, Set<String> sortProperties) {
+        if (!sortProperties.contains(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort: " + sort);
+        }
+        return Sort.by(Sort.Direction.DESC, sort).and(Sort.by(Sort.Direction.DESC, "id"));
+    }
+
+    // Writes each book the producer hands over as one line; Tomcat sends the buffer in chunks as it fills.
+    // The stream permit is taken before the response starts, so a stream over the cap gets a plain 503.
+    ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<Books>> producer) {
+        ObjectWriter writer = objectMapper.writerFor(Books.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        streamPermits.acquire();
+        StreamingResponseBody body = out -> {
+            try {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                try {
+                    producer.accept(book -> {
+                        try {
+                            writer.writeValue(generator, book);
+                            generator.writeRaw('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } finally {
+                    generator.close();
+                }
+            } finally {
+                streamPermits.release();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
 
 }
@@ -0,0 +1,54 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Service.BookLookupCache;
+import com.example.demo.Service.CatalogImportProgress;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+public class CatalogAdminController {
+
+    private final BookLookupCache bookLookupCache;
+
+    private final CatalogImportProgress importProgress;
+
+    @Autowired
+    public CatalogAdminController(BookLookupCache bookLookupCache, CatalogImportProgress importProgress) {
+        this.bookLookupCache = bookLookupCache;
+        this.importProgress = importProgress;
+    }
+
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStats() {
+        CacheStats stats = bookLookupCache.stats();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", bookLookupCache.size());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        return result;
+    }
+
+    @GetMapping("/import")
+    public Map<String, Object> getImportProgress() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("state", importProgress.getState());
+        result.put("ready", importProgress.isReady());
+        result.put("rows", importProgress.getRows());
+        result.put("totalRows", importProgress.getTotalRows());
+        result.put("rowsPerSecond", importProgress.getRowsPerSecond());
+        result.put("elapsedMillis", importProgress.getElapsedMillis());
+        result.put("error", importProgress.getError());
+        return result;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Model.Suggestion;
+import com.example.demo.Service.SuggestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class SuggestController {
+
+    private final SuggestionService suggestionService;
+
+    @Autowired
+    public SuggestController(SuggestionService suggestionService) {
+        this.suggestionService = suggestionService;
+    }
+
+    // Type-ahead: titles and authors starting with q, or with a later word starting with q, best rated first
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(@RequestParam String q,
+                                    @RequestParam(defaultValue = "10") int limit) {
+        return suggestionService.suggest(q, Math.max(1, limit));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.Model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Lookup key for an author name, stored in {@code books.author_key} at import time and applied
+ * to every author a client sends, so "Martin Reeves", " martin  reeves" and "MARTIN REEVES"
+ * are one index hit. The pipeline:
+ * <ol>
+ *   <li>Unicode NFKC, folding compatibility forms (full-width letters, ligatures, no-break spaces);</li>
+ *   <li>case folding, upper then lower case in the root locale, so "ß" and "SS" agree;</li>
+ *   <li>diacritics removed: decomposed to NFD and the combining diacritical marks dropped;</li>
+ *   <li>runs of whitespace collapsed to one space and trimmed.</li>
+ * </ol>
+ * Changing the pipeline changes the keys already stored, so it needs a migration that clears
+ * the import checkpoints and row hashes to have the next import rewrite them.
+ */
+public final class AuthorKey {
+
+    private static final char COMBINING_DIACRITICS_START = '\u0300';
+
+    private static final char COMBINING_DIACRITICS_END = '\u036f';
+
+    private AuthorKey() {
+    }
+
+    public static String of(String author) {
+        if (author == null) {
+            return null;
+        }
+        if (isPlainAscii(author)) {
+            return collapseWhitespace(author.toLowerCase(Locale.ROOT));
+        }
+        String folded = Normalizer.normalize(author, Normalizer.Form.NFKC)
+                .toUpperCase(Locale.ROOT)
+                .toLowerCase(Locale.ROOT);
+        String decomposed = Normalizer.normalize(folded, Normalizer.Form.NFD);
+        StringBuilder stripped = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            // Only the Latin/Greek/Cyrillic accents; marks that other scripts need for vowels stay
+            if (c < COMBINING_DIACRITICS_START || c > COMBINING_DIACRITICS_END) {
+                stripped.append(c);
+            }
+        }
+        return collapseWhitespace(Normalizer.normalize(stripped, Normalizer.Form.NFC));
+    }
+
+    // Most names are ASCII, where NFKC, case folding and mark removal reduce to toLowerCase
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String collapseWhitespace(String value) {
+        StringBuilder key = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space = key.length() > 0;
+            } else {
+                if (space) {
+                    key.append(' ');
+                    space = false;
+                }
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+}
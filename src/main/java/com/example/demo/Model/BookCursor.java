@@ -0,0 +1,67 @@
+package com.example.demo.Model;
+
+import java.util.Objects;
+
+/**
+ * Keyset position in a (rating DESC, id DESC) ordered result, written as {@code rating:id}.
+ * The next page holds the rows that sort strictly after this position.
+ */
+public class BookCursor {
+
+    private final int rating;
+
+    private final long id;
+
+    public BookCursor(int rating, long id) {
+        this.rating = rating;
+        this.id = id;
+    }
+
+    public static BookCursor of(Books book) {
+        return new BookCursor(book.getRating(), book.getId());
+    }
+
+    // Used by Spring to convert the "after" request parameter
+    public static BookCursor valueOf(String value) {
+        int separator = value.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Cursor must look like rating:id but was " + value);
+        }
+        return new BookCursor(Integer.parseInt(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1)));
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    // True when the book sorts strictly after this cursor
+    public boolean precedes(Books book) {
+        if (book.getRating() != rating) {
+            return book.getRating() < rating;
+        }
+        return book.getId() != null && book.getId() < id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookCursor that = (BookCursor) o;
+        return rating == that.rating && id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rating, id);
+    }
+
+    @Override
+    public String toString() {
+        return rating + ":" + id;
+    }
+}
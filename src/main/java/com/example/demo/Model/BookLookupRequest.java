@@ -0,0 +1,39 @@
+package com.example.demo.Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of {@code POST /books/lookup}: authors and exact titles to resolve in one request.
+ * Either list may be left out.
+ */
+public class BookLookupRequest {
+
+    private List<String> authors = new ArrayList<>();
+
+    private List<String> titles = new ArrayList<>();
+
+    public BookLookupRequest() {
+    }
+
+    public BookLookupRequest(List<String> authors, List<String> titles) {
+        setAuthors(authors);
+        setTitles(titles);
+    }
+
+    public List<String> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(List<String> authors) {
+        this.authors = authors == null ? new ArrayList<>() : authors;
+    }
+
+    public List<String> getTitles() {
+        return titles;
+    }
+
+    public void setTitles(List<String> titles) {
+        this.titles = titles == null ? new ArrayList<>() : titles;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.Model;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of {@code POST /books/lookup}: the books for each requested author and title,
+ * keyed in request order. A key without books maps to an empty list.
+ */
+public class BookLookupResult {
+
+    private final Map<String, List<Books>> authors;
+
+    private final Map<String, List<Books>> titles;
+
+    public BookLookupResult(Map<String, List<Books>> authors, Map<String, List<Books>> titles) {
+        this.authors = new LinkedHashMap<>(authors);
+        this.titles = new LinkedHashMap<>(titles);
+    }
+
+    public Map<String, List<Books>> getAuthors() {
+        return authors;
+    }
+
+    public Map<String, List<Books>> getTitles() {
+        return titles;
+    }
+}
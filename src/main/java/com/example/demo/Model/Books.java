@@ -1,27 +1,54 @@
 package com.example.demo.Model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
+import java.time.YearMonth;
 import java.util.Objects;
 
 
 @Entity
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_author_key_rating", columnList = "author_key, rating DESC, id DESC"),
+        @Index(name = "idx_books_title_rating", columnList = "title, rating DESC, id DESC"),
+        @Index(name = "idx_books_rating", columnList = "rating DESC, id DESC"),
+        @Index(name = "idx_books_views", columnList = "views DESC, id DESC"),
+        @Index(name = "idx_books_likes", columnList = "likes DESC, id DESC"),
+        @Index(name = "idx_books_date", columnList = "date DESC, id DESC")
+})
 public class Books {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
     private String title;
     private String author;
 
-    private String date;
+    @Convert(converter = YearMonthConverter.class)
+    private YearMonth date;
 
-    private String views;
+    private long views;
 
-    private String likes;
+    private int likes;
 
+    @Column(length = 512)
     private String link;
 
     private int rating;
 
+    // Import bookkeeping: SHA-1 of the normalised title+author, and a hash of the catalog columns
+    @JsonIgnore
+    @Column(length = 40)
+    private String rowKey;
+
+    @JsonIgnore
+    private Long rowHash;
+
+    // AuthorKey.of(author), kept in step by the lifecycle callback below and the import's UPDATE
+    @JsonIgnore
+    @Column(length = 512)
+    private String authorKey;
+
     public int getRating() {
         return rating;
     }
@@ -58,27 +85,27 @@ public class Books {
         this.author = author;
     }
 
-    public String getDate() {
+    public YearMonth getDate() {
         return date;
     }
 
-    public void setDate(String date) {
+    public void setDate(YearMonth date) {
         this.date = date;
     }
 
-    public String getViews() {
+    public long getViews() {
         return views;
     }
 
-    public void setViews(String views) {
+    public void setViews(long views) {
         this.views = views;
     }
 
-    public String getLikes() {
+    public int getLikes() {
         return likes;
     }
 
-    public void setLikes(String likes) {
+    public void setLikes(int likes) {
         this.likes = likes;
     }
 
@@ -90,7 +117,33 @@ public class Books {
         this.link = link;
     }
 
-    public Books(Long id, String title, String author, String date, String views, String likes, String link, int rating) {
+    public String getRowKey() {
+        return rowKey;
+    }
+
+    public void setRowKey(String rowKey) {
+        this.rowKey = rowKey;
+    }
+
+    public Long getRowHash() {
+        return rowHash;
+    }
+
+    public void setRowHash(Long rowHash) {
+        this.rowHash = rowHash;
+    }
+
+    public String getAuthorKey() {
+        return authorKey;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateAuthorKey() {
+        authorKey = AuthorKey.of(author);
+    }
+
+    public Books(Long id, String title, String author, YearMonth date, long views, int likes, String link, int rating) {
         this.id = id;
         this.title = title;
         this.author = author;
@@ -101,6 +154,12 @@ public class Books {
         this.rating = rating;
     }
 
+    // Raw catalog values, parsed once here
+    public Books(Long id, String title, String author, String date, String views, String likes, String link, int rating) {
+        this(id, title, author, CatalogValues.parseMonth(date), CatalogValues.parseCount(views),
+                CatalogValues.parseIntCount(likes), link, rating);
+    }
+
 
     @Override
     public boolean equals(Object o) {
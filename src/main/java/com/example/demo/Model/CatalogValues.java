@@ -0,0 +1,75 @@
+package com.example.demo.Model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.Locale;
+
+/**
+ * Parses the raw catalog columns once, at import time. The CSV has a few malformed values
+ * (negative or scientific-notation counts, free-text dates); those become 0 or null.
+ */
+public final class CatalogValues {
+
+    // "Dec-21"; two-digit years 50-99 are 19xx, 00-49 are 20xx
+    private static final DateTimeFormatter SHORT_MONTH = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("MMM-")
+            .appendValueReduced(ChronoField.YEAR, 2, 2, 1950)
+            .toFormatter(Locale.ENGLISH);
+
+    // "November 1999"
+    private static final DateTimeFormatter LONG_MONTH = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("MMMM yyyy")
+            .toFormatter(Locale.ENGLISH);
+
+    private CatalogValues() {
+    }
+
+    public static long parseCount(String value) {
+        if (value == null) {
+            return 0;
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty() || trimmed.length() > 18) {
+            return 0;
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (!Character.isDigit(trimmed.charAt(i))) {
+                return 0;
+            }
+        }
+        return Long.parseLong(trimmed);
+    }
+
+    public static int parseIntCount(String value) {
+        long count = parseCount(value);
+        return count > Integer.MAX_VALUE ? 0 : (int) count;
+    }
+
+    public static YearMonth parseMonth(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            if (Character.isLetter(trimmed.charAt(0))) {
+                return YearMonth.parse(trimmed, trimmed.indexOf('-') > 0 ? SHORT_MONTH : LONG_MONTH);
+            }
+            switch (trimmed.length()) {
+                case 4:
+                    return YearMonth.of(Integer.parseInt(trimmed), 1);
+                case 7:
+                    return YearMonth.parse(trimmed);
+                default:
+                    return YearMonth.from(LocalDate.parse(trimmed));
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.Model;
+
+import java.util.Objects;
+
+/**
+ * One type-ahead entry: a book title or an author name, with the rating it is ranked by
+ * (the best rating among the author's books for an author).
+ */
+public class Suggestion {
+
+    public static final String TITLE = "title";
+
+    public static final String AUTHOR = "author";
+
+    private final String text;
+
+    private final String kind;
+
+    private final int rating;
+
+    public Suggestion(String text, String kind, int rating) {
+        this.text = text;
+        this.kind = kind;
+        this.rating = rating;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Suggestion that = (Suggestion) o;
+        return rating == that.rating && Objects.equals(text, that.text) && Objects.equals(kind, that.kind);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(text, kind, rating);
+    }
+
+    @Override
+    public String toString() {
+        return kind + ":" + text + " (" + rating + ")";
+    }
+}
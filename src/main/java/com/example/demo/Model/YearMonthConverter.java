@@ -0,0 +1,20 @@
+package com.example.demo.Model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.time.YearMonth;
+
+// Stores a YearMonth as months since year 0, so dates sort and compare as plain integers
+@Converter
+public class YearMonthConverter implements AttributeConverter<YearMonth, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(YearMonth month) {
+        return month == null ? null : month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    @Override
+    public YearMonth convertToEntityAttribute(Integer epochMonth) {
+        return epochMonth == null ? null : YearMonth.of(Math.floorDiv(epochMonth, 12), Math.floorMod(epochMonth, 12) + 1);
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Component.CatalogLoadedEvent;
+import com.example.demo.Model.Books;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Relevance-ranked keyword search over titles and authors, used for {@code sort=relevance}.
+ *
+ * Each document is scored with BM25 over the query terms, title tokens counting
+ * {@link #TITLE_WEIGHT} times, and the score is scaled by {@code 1 + ratingWeight * ln(1 + rating)}
+ * so popularity breaks ties without outranking a better match. Stop words are dropped from the
+ * query unless it has nothing else. Posting lists are walked document-at-a-time and only the best
+ * {@code offset + limit} documents are kept in a bounded heap, so a query never sorts or
+ * allocates for its whole match set. Documents are the positions of the shared
+ * {@link CatalogSnapshot}; results are copies, and scores use its current ratings.
+ */
+@Component
+public class Bm25SearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(Bm25SearchIndex.class);
+
+    static final int TITLE_WEIGHT = 2;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final CatalogSnapshotStore catalogSnapshotStore;
+
+    private final double ratingWeight;
+
+    private volatile Index index = Index.build(CatalogSnapshot.build(Collections.emptyList()));
+
+    public Bm25SearchIndex(CatalogSnapshotStore catalogSnapshotStore,
+                           @Value("${catalog.search.relevance.rating-weight:0.1}") double ratingWeight) {
+        this.catalogSnapshotStore = catalogSnapshotStore;
+        this.ratingWeight = Math.max(0, ratingWeight);
+    }
+
+    // Builds from a load that happened before this bean existed, e.g. a mapped snapshot file
+    @PostConstruct
+    public void load() {
+        CatalogSnapshot snapshot = catalogSnapshotStore.loaded();
+        if (snapshot != null) {
+            rebuild(snapshot);
+        }
+    }
+
+    @EventListener
+    public void onCatalogLoaded(CatalogLoadedEvent event) {
+        rebuild(event.getSnapshot());
+    }
+
+    public synchronized void rebuild(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        index = Index.build(snapshot);
+        log.info("Relevance index built over {} books in {} ms", snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<Books> search(List<String> keywords, long offset, int limit) {
+        Index current = index;
+        return current.rank(queryTerms(keywords), -1, offset, limit, ratingWeight);
+    }
+
+    // Exact (case-insensitive) title matches by rating first, then the ranked keyword matches
+    public List<Books> searchByTitleOrKeywords(String title, List<String> keywords, long offset, int limit) {
+        Index current = index;
+        int[] exact = title == null ? null : current.titles.get(title.toLowerCase(Locale.ROOT));
+        List<Books> result = new ArrayList<>();
+        int exactCount = 0;
+        if (exact != null) {
+            exactCount = exact.length;
+            List<Books> exactBooks = new ArrayList<>(exact.length);
+            for (int doc : exact) {
+                exactBooks.add(current.docs.copy(doc));
+            }
+            exactBooks.sort(CatalogSnapshot.RATING_THEN_ID);
+            for (int i = (int) Math.min(offset, exactCount); i < exactCount && result.size() < limit; i++) {
+                result.add(exactBooks.get(i));
+            }
+        }
+        if (result.size() < limit) {
+            long keywordOffset = Math.max(0, offset - exactCount);
+            String exactKey = exact == null ? null : title.toLowerCase(Locale.ROOT);
+            int exactTitleId = exactKey == null ? -1 : current.titleIds.get(exactKey);
+            result.addAll(current.rank(queryTerms(keywords), exactTitleId, keywordOffset, limit - result.size(), ratingWeight));
+        }
+        return result;
+    }
+
+    public int size() {
+        return index.docs.size();
+    }
+
+    static List<String> queryTerms(List<String> keywords) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String keyword : keywords) {
+            tokens.addAll(KeywordTokenizer.tokenize(keyword));
+        }
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            if (!KeywordTokenizer.isStopWord(token)) {
+                terms.add(token);
+            }
+        }
+        return terms.isEmpty() ? new ArrayList<>(tokens) : terms;
+    }
+
+    static final class Index {
+
+        final CatalogSnapshot docs;
+
+        // Weighted term frequency per document, indexed like docs
+        final int[] lengths;
+
+        final double averageLength;
+
+        final Map<String, Postings> postings;
+
+        // Lower-cased title -> documents, and -> a per-title id so exact matches can be skipped while ranking
+        final Map<String, int[]> titles;
+
+        final Map<String, Integer> titleIds;
+
+        final int[] titleIdOf;
+
+        private Index(CatalogSnapshot docs, int[] lengths, Map<String, Postings> postings,
+                      Map<String, int[]> titles, Map<String, Integer> titleIds, int[] titleIdOf) {
+            this.docs = docs;
+            this.lengths = lengths;
+            long total = 0;
+            for (int length : lengths) {
+                total += length;
+            }
+            this.averageLength = lengths.length == 0 ? 1 : Math.max(1, (double) total / lengths.length);
+            this.postings = postings;
+            this.titles = titles;
+            this.titleIds = titleIds;
+            this.titleIdOf = titleIdOf;
+        }
+
+        List<Books> rank(List<String> terms, int skipTitleId, long offset, int limit, double ratingWeight) {
+            if (limit <= 0 || offset + limit > Integer.MAX_VALUE) {
+                return Collections.emptyList();
+            }
+            Postings[] lists = new Postings[terms.size()];
+            double[] idfs = new double[terms.size()];
+            int count = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null) {
+                    lists[count] = list;
+                    idfs[count++] = Math.log(1 + (docs.size() - list.docs.length + 0.5) / (list.docs.length + 0.5));
+                }
+            }
+            TopK top = new TopK((int) (offset + limit));
+            int[] cursors = new int[count];
+            while (true) {
+                // Document-at-a-time: the smallest document id under any cursor is scored next
+                int doc = Integer.MAX_VALUE;
+                for (int i = 0; i < count; i++) {
+                    if (cursors[i] < lists[i].docs.length) {
+                        doc = Math.min(doc, lists[i].docs[cursors[i]]);
+                    }
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+                double score = 0;
+                double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                for (int i = 0; i < count; i++) {
+                    Postings list = lists[i];
+                    if (cursors[i] < list.docs.length && list.docs[cursors[i]] == doc) {
+                        int tf = list.frequencies[cursors[i]++];
+                        score += idfs[i] * tf * (K1 + 1) / (tf + norm);
+                    }
+                }
+                if (skipTitleId >= 0 && titleIdOf[doc] == skipTitleId) {
+                    continue;
+                }
+                top.offer(doc, score * (1 + ratingWeight * Math.log1p(Math.max(0, docs.rating(doc)))));
+            }
+
+            int[] ranked = top.drainDescending();
+            List<Books> result = new ArrayList<>(Math.max(0, ranked.length - (int) offset));
+            for (int i = (int) offset; i < ranked.length; i++) {
+                result.add(docs.copy(ranked[i]));
+            }
+            return result;
+        }
+
+        static Index build(CatalogSnapshot docs) {
+            int[] lengths = new int[docs.size()];
+            int[] titleIdOf = new int[docs.size()];
+            Map<String, PostingsBuilder> building = new HashMap<>();
+            Map<String, List<Integer>> titles = new HashMap<>();
+            Map<String, Integer> titleIds = new HashMap<>();
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (int doc = 0; doc < docs.size(); doc++) {
+                String title = docs.title(doc);
+                titleIdOf[doc] = -1;
+                if (title != null) {
+                    String key = title.toLowerCase(Locale.ROOT);
+                    titles.computeIfAbsent(key, t -> new ArrayList<>()).add(doc);
+                    titleIdOf[doc] = titleIds.computeIfAbsent(key, t -> titleIds.size());
+                }
+                frequencies.clear();
+                for (String token : KeywordTokenizer.tokenize(title)) {
+                    frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+                }
+                for (String token : KeywordTokenizer.tokenize(docs.author(doc))) {
+                    frequencies.merge(token, 1, Integer::sum);
+                }
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    building.computeIfAbsent(entry.getKey(), t -> new PostingsBuilder()).add(doc, entry.getValue());
+                    lengths[doc] += entry.getValue();
+                }
+            }
+
+            Map<String, Postings> postings = new HashMap<>(building.size() * 2);
+            for (Map.Entry<String, PostingsBuilder> entry : building.entrySet()) {
+                postings.put(entry.getKey(), entry.getValue().build());
+            }
+            Map<String, int[]> titleDocs = new HashMap<>(titles.size() * 2);
+            for (Map.Entry<String, List<Integer>> entry : titles.entrySet()) {
+                titleDocs.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+            return new Index(docs, lengths, postings, titleDocs, titleIds, titleIdOf);
+        }
+    }
+
+    // Documents in ascending order with their weighted term frequencies
+    static final class Postings {
+
+        final int[] docs;
+
+        final int[] frequencies;
+
+        Postings(int[] docs, int[] frequencies) {
+            this.docs = docs;
+            this.frequencies = frequencies;
+        }
+    }
+
+    private static final class PostingsBuilder {
+
+        private int[] docs = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int size;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size++] = frequency;
+        }
+
+        Postings build() {
+            return new Postings(Arrays.copyOf(docs, size), Arrays.copyOf(frequencies, size));
+        }
+    }
+
+    /**
+     * Min-heap of the best {@code capacity} (score, document) pairs seen so far. Ties on score go
+     * to the lower document id, so results are stable between identical queries.
+     */
+    static final class TopK {
+
+        private final int capacity;
+
+        private double[] heapScores;
+
+        private int[] heapDocs;
+
+        private int size;
+
+        TopK(int capacity) {
+            this.capacity = capacity;
+            this.heapScores = new double[Math.min(capacity, 64)];
+            this.heapDocs = new int[Math.min(capacity, 64)];
+        }
+
+        void offer(int doc, double score) {
+            if (size < capacity) {
+                if (size == heapDocs.length) {
+                    int grown = (int) Math.min(capacity, (long) size * 2);
+                    heapScores = Arrays.copyOf(heapScores, grown);
+                    heapDocs = Arrays.copyOf(heapDocs, grown);
+                }
+                heapScores[size] = score;
+                heapDocs[size] = doc;
+                siftUp(size++);
+            } else if (worse(heapDocs[0], heapScores[0], doc, score)) {
+                heapScores[0] = score;
+                heapDocs[0] = doc;
+                siftDown(0);
+            }
+        }
+
+        int[] drainDescending() {
+            int[] ranked = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ranked[i] = heapDocs[0];
+                size--;
+                heapScores[0] = heapScores[size];
+                heapDocs[0] = heapDocs[size];
+                siftDown(0);
+            }
+            return ranked;
+        }
+
+        // True when (doc1, score1) ranks below (doc2, score2)
+        private static boolean worse(int doc1, double score1, int doc2, double score2) {
+            return score1 < score2 || (score1 == score2 && doc1 > doc2);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(heapDocs[i], heapScores[i], heapDocs[parent], heapScores[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int child = left + 1 < size && worse(heapDocs[left + 1], heapScores[left + 1], heapDocs[left], heapScores[left])
+                        ? left + 1 : left;
+                if (!worse(heapDocs[child], heapScores[child], heapDocs[i], heapScores[i])) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double score = heapScores[a];
+            heapScores[a] = heapScores[b];
+            heapScores[b] = score;
+            int doc = heapDocs[a];
+            heapDocs[a] = heapDocs[b];
+            heapDocs[b] = doc;
+        }
+    }
+}
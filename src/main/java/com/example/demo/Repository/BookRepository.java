@@ -2,13 +2,18 @@ package com.example.demo.Repository;
 
 import com.example.demo.Model.Books;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
 import java.util.List;
 
 @Component
@@ -16,8 +21,42 @@ import java.util.List;
 @Qualifier("repositoryA")
 public interface BookRepository extends JpaRepository<Books, Long>, BookRepositoryCustom{
 
-    List<Books> findByAuthor(String author, Sort sort);
-    @Query("SELECT b FROM Books b WHERE b.title = :title")
+    // Search results are built through a constructor expression, so they never enter the persistence
+    // context: no snapshots, no dirty checks, and the rating increments stay with RatingCounter
+    String DETACHED_BOOKS = "SELECT new com.example.demo.Model.Books(b.id, b.title, b.author, b.date, b.views, b.likes, b.link, b.rating) FROM Books b";
+
+    // Read paths never write, so they skip the auto-flush before the query runs
+    String FLUSH_MODE = org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
+
+    // Author lookups compare the normalised key: callers pass AuthorKey.of(author)
+    @Query(DETACHED_BOOKS + " WHERE b.authorKey = :authorKey")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = "COMMIT"))
+    List<Books> findByAuthorKey(@Param("authorKey") String authorKey, Sort sort);
+    @Query(DETACHED_BOOKS + " WHERE b.title = :title")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = "COMMIT"))
     List<Books> findByExactTitleMatch(@Param("title") String title, Sort sort);
 
+    @Query(DETACHED_BOOKS + " WHERE b.authorKey = :authorKey")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = "COMMIT"))
+    List<Books> findByAuthorKey(@Param("authorKey") String authorKey, Pageable pageable);
+    @Query(DETACHED_BOOKS + " WHERE b.title = :title")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = "COMMIT"))
+    List<Books> findByExactTitleMatch(@Param("title") String title, Pageable pageable);
+
+    // Keyset pages: rows strictly after (rating, id) in rating DESC, id DESC order
+    @Query(DETACHED_BOOKS + " WHERE b.authorKey = :authorKey AND (b.rating < :rating OR (b.rating = :rating AND b.id < :id)) ORDER BY b.rating DESC, b.id DESC")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = "COMMIT"))
+    List<Books> findByAuthorKeyAfter(@Param("authorKey") String authorKey, @Param("rating") int rating, @Param("id") long id, Pageable pageable);
+    @Query(DETACHED_BOOKS + " WHERE b.title = :title AND (b.rating < :rating OR (b.rating = :rating AND b.id < :id)) ORDER BY b.rating DESC, b.id DESC")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = "COMMIT"))
+    List<Books> findByExactTitleMatchAfter(@Param("title") String title, @Param("rating") int rating, @Param("id") long id, Pageable pageable);
+
+    // Batch lookups: the books of many authors or titles in one statement, in rating order
+    @Query(DETACHED_BOOKS + " WHERE b.authorKey IN :authorKeys ORDER BY b.rating DESC, b.id DESC")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = "COMMIT"))
+    List<Books> findByAuthorKeyIn(@Param("authorKeys") Collection<String> authorKeys);
+    @Query(DETACHED_BOOKS + " WHERE b.title IN :titles ORDER BY b.rating DESC, b.id DESC")
+    @QueryHints(@QueryHint(name = FLUSH_MODE, value = "COMMIT"))
+    List<Books> findByExactTitleIn(@Param("titles") Collection<String> titles);
+
 }
@@ -1,16 +1,43 @@
 package com.example.demo.Repository;
 
+import com.example.demo.Model.BookCursor;
 import com.example.demo.Model.Books;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 @Component
 public interface BookRepositoryCustom{
+
+    // Connector/J streams a statement with this fetch size row by row off its own connection, with no
+    // server-side cursor and no driver-wide useCursorFetch; other drivers, H2 among them, reject it
+    int STREAM_FETCH_SIZE = Integer.MIN_VALUE;
+
     List<Books> findByKeywords(List<String> keywords, Sort sort);
 
+    List<Books> findByKeywords(List<String> keywords, Pageable pageable);
+
+    // Keyset page of at most limit rows after the cursor, in rating DESC, id DESC order
+    List<Books> findByKeywordsAfter(List<String> keywords, BookCursor after, int limit);
+
+    // Exact title matches and keyword matches in one query: exact matches first, then rating DESC, id DESC
+    List<Books> findByTitleOrKeywords(String title, List<String> keywords, Pageable pageable);
+
+    // Keyset continuation of findByTitleOrKeywords; exact matches are served on the first page only
+    List<Books> findByTitleOrKeywordsAfter(String title, List<String> keywords, BookCursor after, int limit);
+
+    // Streaming variants for unbounded results: rows are read from a cursor and detached once read, so the
+    // persistence context stays empty. Call inside a read-only transaction and close the stream.
+    // The author is matched on its AuthorKey.
+    Stream<Books> streamByAuthor(String author, Sort sort);
+
+    // Same order as findByTitleOrKeywords: exact title matches first
+    Stream<Books> streamByTitleOrKeywords(String title, List<String> keywords, Sort sort);
+
 }
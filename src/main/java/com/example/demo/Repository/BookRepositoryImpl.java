@@ -1,26 +1,30 @@
 package com.example.demo.Repository;
 
+import com.example.demo.Model.AuthorKey;
+import com.example.demo.Model.BookCursor;
 import com.example.demo.Model.Books;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import javax.persistence.criteria.Predicate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 @Qualifier("repositoryB")
 public class BookRepositoryImpl implements BookRepositoryCustom{
     @PersistenceContext
     private EntityManager entityManager;
-    private TypedQuery<Books> typedQuery; // Declare the field for the typedQuery
 
-   
 
     @Override
     public List<Books> findByKeywords(List<String> keywords, Sort sort){
@@ -28,29 +32,158 @@ public class BookRepositoryImpl implements BookRepositoryCustom{
         CriteriaQuery<Books> query = cb.createQuery(Books.class);
         Root<Books> root = query.from(Books.class);
 
+        query.where(keywordPredicate(cb, root, keywords));
+        orderBy(cb, root, query, sort);
+
+        TypedQuery<Books> typedQuery = createReadQuery(cb, query, root);
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Books> findByKeywords(List<String> keywords, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Books> query = cb.createQuery(Books.class);
+        Root<Books> root = query.from(Books.class);
+
+        query.where(keywordPredicate(cb, root, keywords));
+        orderBy(cb, root, query, pageable.getSort());
+
+        TypedQuery<Books> typedQuery = createReadQuery(cb, query, root);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Books> findByKeywordsAfter(List<String> keywords, BookCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Books> query = cb.createQuery(Books.class);
+        Root<Books> root = query.from(Books.class);
+
+        query.where(cb.and(keywordPredicate(cb, root, keywords), afterCursor(cb, root, after)));
+        query.orderBy(cb.desc(root.get("rating")), cb.desc(root.get("id")));
+
+        TypedQuery<Books> typedQuery = createReadQuery(cb, query, root);
+        typedQuery.setMaxResults(limit);
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Books> findByTitleOrKeywords(String title, List<String> keywords, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Books> query = cb.createQuery(Books.class);
+        Root<Books> root = query.from(Books.class);
+
+        query.where(cb.or(cb.equal(root.get("title"), title), keywordPredicate(cb, root, keywords)));
+        // Rank exact matches ahead of keyword matches, then by the requested order
+        Expression<Integer> rank = cb.<Integer>selectCase().when(cb.equal(root.get("title"), title), 0).otherwise(1);
+        List<Order> orders = new ArrayList<>();
+        orders.add(cb.asc(rank));
+        orders.addAll(orders(cb, root, pageable.getSort()));
+        query.orderBy(orders);
+
+        TypedQuery<Books> typedQuery = createReadQuery(cb, query, root);
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize());
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Books> findByTitleOrKeywordsAfter(String title, List<String> keywords, BookCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Books> query = cb.createQuery(Books.class);
+        Root<Books> root = query.from(Books.class);
+
+        query.where(cb.and(cb.notEqual(root.get("title"), title), keywordPredicate(cb, root, keywords), afterCursor(cb, root, after)));
+        query.orderBy(cb.desc(root.get("rating")), cb.desc(root.get("id")));
+
+        TypedQuery<Books> typedQuery = createReadQuery(cb, query, root);
+        typedQuery.setMaxResults(limit);
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public Stream<Books> streamByAuthor(String author, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Books> query = cb.createQuery(Books.class);
+        Root<Books> root = query.from(Books.class);
+
+        query.where(cb.equal(root.get("authorKey"), AuthorKey.of(author)));
+        orderBy(cb, root, query, sort);
+
+        return stream(createReadQuery(cb, query, root));
+    }
+
+    @Override
+    public Stream<Books> streamByTitleOrKeywords(String title, List<String> keywords, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Books> query = cb.createQuery(Books.class);
+        Root<Books> root = query.from(Books.class);
+
+        query.where(cb.or(cb.equal(root.get("title"), title), keywordPredicate(cb, root, keywords)));
+        Expression<Integer> rank = cb.<Integer>selectCase().when(cb.equal(root.get("title"), title), 0).otherwise(1);
+        List<Order> orders = new ArrayList<>();
+        orders.add(cb.asc(rank));
+        orders.addAll(orders(cb, root, sort));
+        query.orderBy(orders);
+
+        return stream(createReadQuery(cb, query, root));
+    }
+
+    // Rows are streamed from the open result set (see STREAM_FETCH_SIZE); they are already detached
+    private Stream<Books> stream(TypedQuery<Books> query) {
+        query.setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+        return query.getResultStream();
+    }
+
+    // Selects plain Books through a constructor expression, so nothing enters the persistence context,
+    // and skips the auto-flush: these queries only read
+    private TypedQuery<Books> createReadQuery(CriteriaBuilder cb, CriteriaQuery<Books> query, Root<Books> root) {
+        query.select(cb.construct(Books.class, root.get("id"), root.get("title"), root.get("author"), root.get("date"),
+                root.get("views"), root.get("likes"), root.get("link"), root.get("rating")));
+        TypedQuery<Books> readQuery = entityManager.createQuery(query);
+        readQuery.setFlushMode(FlushModeType.COMMIT);
+        return readQuery;
+    }
+
+    // (rating < :rating) OR (rating = :rating AND id < :id)
+    private Predicate afterCursor(CriteriaBuilder cb, Root<Books> root, BookCursor after) {
+        Path<Integer> rating = root.get("rating");
+        Path<Long> id = root.get("id");
+        return cb.or(
+                cb.lessThan(rating, after.getRating()),
+                cb.and(cb.equal(rating, after.getRating()), cb.lessThan(id, after.getId())));
+    }
+
+    private Predicate keywordPredicate(CriteriaBuilder cb, Root<Books> root, List<String> keywords) {
         List<Predicate> predicates = new ArrayList<>();
 
         for (String keyword : keywords){
             predicates.add(cb.like(root.get("title"), "%" + keyword + "%"));
         }
 
-        query.where(cb.or(predicates.toArray(new Predicate[0])));
+        return cb.or(predicates.toArray(new Predicate[0]));
+    }
 
+    private void orderBy(CriteriaBuilder cb, Root<Books> root, CriteriaQuery<Books> query, Sort sort) {
         if (sort != null && !sort.isUnsorted()) {
-            List<Order> orders = new ArrayList<>();
-            for (Sort.Order sortOrder : sort) {
-                String property = sortOrder.getProperty();
-                if (sortOrder.isAscending()) {
-                    orders.add(cb.asc(root.get(property)));
-                } else {
-                    orders.add(cb.desc(root.get(property)));
-                }
-            }
-            query.orderBy(orders);
+            query.orderBy(orders(cb, root, sort));
         }
+    }
 
-        typedQuery = entityManager.createQuery(query);
-        return typedQuery.getResultList();
+    private List<Order> orders(CriteriaBuilder cb, Root<Books> root, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order sortOrder : sort) {
+            String property = sortOrder.getProperty();
+            if (sortOrder.isAscending()) {
+                orders.add(cb.asc(root.get(property)));
+            } else {
+                orders.add(cb.desc(root.get(property)));
+            }
+        }
+        return orders;
     }
 
     private EntityManager getEntityManager() {
@@ -58,9 +191,4 @@ public class BookRepositoryImpl implements BookRepositoryCustom{
     }
 
 
-    public void setTypedQuery(TypedQuery<Books> typedQuery) {
-        this.typedQuery = typedQuery;
-    }
-
-
 }
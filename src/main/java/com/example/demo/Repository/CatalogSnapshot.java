@@ -0,0 +1,438 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Model.AuthorKey;
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.Books;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-memory copy of the whole catalog, and the one load the search indexes are built from:
+ * they address books by their position here. Per-author and per-title indexes map a key to
+ * the positions of its books. Authors are matched on their {@link AuthorKey}, like the
+ * database; titles case-insensitively, like MySQL's default collation.
+ *
+ * Every column but the rating is immutable. Ratings live in their own array, and the
+ * written-back increments are added to it with {@link #apply}, so the snapshot follows
+ * rating changes without re-reading the catalog. Positions are in rating order as of the
+ * build; as ratings move, a key's books are re-sorted on the current ratings when a page is
+ * cut, which costs little because they stay nearly in order.
+ *
+ * Two layouts share the paging logic here: {@link #build} keeps the {@code Books} objects in
+ * a heap array with hash-map indexes, {@link #offHeap} keeps dictionary-encoded columns in
+ * direct memory (see {@link OffHeapCatalogSnapshot}).
+ *
+ * Lookups hand out copies, so callers may change them (the rating increment does) without
+ * touching the snapshot that other threads are reading.
+ */
+public abstract class CatalogSnapshot {
+
+    static final Comparator<Books> RATING_THEN_ID = Comparator.comparingInt(Books::getRating).reversed()
+            .thenComparing(Books::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    // Current rating by position
+    private final AtomicIntegerArray ratings;
+
+    // Counts applied increments, so a saved copy can tell it is behind
+    private final AtomicLong ratingVersion = new AtomicLong();
+
+    // Ids in ascending order and the position of each, built when ratings are first written
+    private long[] sortedIds;
+
+    private int[] positionsOfIds;
+
+    CatalogSnapshot(int[] ratings) {
+        this.ratings = new AtomicIntegerArray(ratings);
+    }
+
+    public static CatalogSnapshot build(List<Books> books) {
+        return new Heap(sorted(books));
+    }
+
+    public static CatalogSnapshot offHeap(List<Books> books) {
+        return OffHeapCatalogSnapshot.build(sorted(books));
+    }
+
+    // Positions follow rating order, so posting lists filled in position order come out sorted
+    static Books[] sorted(List<Books> books) {
+        Books[] docs = books.toArray(new Books[0]);
+        Arrays.sort(docs, RATING_THEN_ID);
+        return docs;
+    }
+
+    static String normalise(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    public abstract int size();
+
+    // Positions of the key's books in build-time rating order, or null when there are none
+    abstract Postings authorPostings(String key);
+
+    abstract Postings titlePostings(String key);
+
+    // A detached book with the current rating
+    abstract Books copy(int doc);
+
+    abstract long id(int doc);
+
+    // Catalog columns by position, 0 to size() - 1, for building the search indexes
+    public abstract String title(int doc);
+
+    public abstract String author(int doc);
+
+    public int rating(int doc) {
+        return ratings.get(doc);
+    }
+
+    long ratingVersion() {
+        return ratingVersion.get();
+    }
+
+    /**
+     * Adds written-back rating increments, by book id; ids not in this snapshot are ignored.
+     * Called from the thread that flushes the rating counter, concurrently with lookups.
+     */
+    synchronized void apply(Map<Long, Long> deltas) {
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            int doc = position(delta.getKey());
+            if (doc >= 0) {
+                ratings.addAndGet(doc, (int) (long) delta.getValue());
+            }
+        }
+        ratingVersion.incrementAndGet();
+    }
+
+    // Overwrites ratings with the values read back from the database, by book id; ids not in this snapshot are
+    // ignored, and the version only moves when a rating differs, so an unchanged snapshot is not saved again
+    synchronized void reset(Map<Long, Integer> current) {
+        boolean changed = false;
+        for (Map.Entry<Long, Integer> rating : current.entrySet()) {
+            int doc = position(rating.getKey());
+            if (doc >= 0 && ratings.getAndSet(doc, rating.getValue()) != rating.getValue()) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            ratingVersion.incrementAndGet();
+        }
+    }
+
+    // Position of the book, or -1 when it is not in this snapshot
+    private int position(long id) {
+        if (sortedIds == null) {
+            indexIds();
+        }
+        int index = Arrays.binarySearch(sortedIds, id);
+        return index >= 0 ? positionsOfIds[index] : -1;
+    }
+
+    // Two primitive arrays instead of a map, so the off-heap layout stays light on the heap
+    private void indexIds() {
+        long[] ids = new long[size()];
+        int count = 0;
+        for (int doc = 0; doc < ids.length; doc++) {
+            if (id(doc) != Long.MIN_VALUE) {
+                ids[count++] = id(doc);
+            }
+        }
+        long[] sorted = Arrays.copyOf(ids, count);
+        Arrays.sort(sorted);
+        int[] positions = new int[count];
+        for (int doc = 0; doc < ids.length; doc++) {
+            long id = id(doc);
+            if (id != Long.MIN_VALUE) {
+                positions[Arrays.binarySearch(sorted, id)] = doc;
+            }
+        }
+        sortedIds = sorted;
+        positionsOfIds = positions;
+    }
+
+    static int[] ratingsOf(Books[] docs) {
+        int[] ratings = new int[docs.length];
+        for (int doc = 0; doc < docs.length; doc++) {
+            ratings[doc] = docs[doc].getRating();
+        }
+        return ratings;
+    }
+
+    // The snapshot in the columnar layout, which is what a snapshot file holds
+    abstract OffHeapCatalogSnapshot columns();
+
+    public List<Books> byAuthor(String author, Pageable pageable, BookCursor after) {
+        return page(authorPostings(AuthorKey.of(author)), pageable, after);
+    }
+
+    public List<Books> byTitle(String title, Pageable pageable, BookCursor after) {
+        return page(titlePostings(normalise(title)), pageable, after);
+    }
+
+    // Every book of the author, in rating order
+    public List<Books> byAuthor(String author) {
+        return page(authorPostings(AuthorKey.of(author)), Pageable.unpaged(), null);
+    }
+
+    public List<Books> byTitle(String title) {
+        return page(titlePostings(normalise(title)), Pageable.unpaged(), null);
+    }
+
+    private List<Books> page(Postings postings, Pageable pageable, BookCursor after) {
+        if (postings == null) {
+            return new ArrayList<>();
+        }
+        if (after != null) {
+            // Keyset pages always continue the rating order
+            RatingOrder order = new RatingOrder(postings);
+            int from = order.firstAfter(after);
+            return order.copies(from, Math.min(order.size(), from + pageable.getPageSize()));
+        }
+        if (pageable.isUnpaged()) {
+            RatingOrder order = new RatingOrder(postings);
+            return order.copies(0, order.size());
+        }
+        Sort sort = pageable.getSort();
+        if (isRatingOrder(sort)) {
+            RatingOrder order = new RatingOrder(postings);
+            long from = Math.min(order.size(), pageable.getOffset());
+            return order.copies((int) from, (int) Math.min(order.size(), from + pageable.getPageSize()));
+        }
+        // Other orders re-sort the key's books; a key rarely has more than a handful
+        List<Books> sorted = copies(postings, 0, postings.size());
+        sorted.sort(InvertedIndexBookRepository.comparatorFor(sort));
+        if (pageable.getOffset() >= sorted.size()) {
+            return new ArrayList<>();
+        }
+        int from = (int) pageable.getOffset();
+        return new ArrayList<>(sorted.subList(from, Math.min(sorted.size(), from + pageable.getPageSize())));
+    }
+
+    /**
+     * A key's books sorted by rating DESC, id DESC on the ratings read once up front, so a page
+     * and its cursor agree even while increments land. Insertion sort, since the postings are
+     * still in build-time rating order and rarely more than a few places out.
+     */
+    private final class RatingOrder {
+
+        private final int[] docs;
+
+        private final int[] ratings;
+
+        RatingOrder(Postings postings) {
+            int size = postings.size();
+            docs = new int[size];
+            ratings = new int[size];
+            for (int i = 0; i < size; i++) {
+                int doc = postings.doc(i);
+                int rating = rating(doc);
+                int j = i;
+                while (j > 0 && before(doc, rating, docs[j - 1], ratings[j - 1])) {
+                    docs[j] = docs[j - 1];
+                    ratings[j] = ratings[j - 1];
+                    j--;
+                }
+                docs[j] = doc;
+                ratings[j] = rating;
+            }
+        }
+
+        private boolean before(int doc, int rating, int other, int otherRating) {
+            return rating != otherRating ? rating > otherRating : id(doc) > id(other);
+        }
+
+        int size() {
+            return docs.length;
+        }
+
+        // First index whose book sorts strictly after the cursor
+        int firstAfter(BookCursor after) {
+            int low = 0;
+            int high = docs.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                boolean precedes = ratings[mid] != after.getRating() ? ratings[mid] < after.getRating() : id(docs[mid]) < after.getId();
+                if (precedes) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        List<Books> copies(int from, int to) {
+            if (from >= to) {
+                return new ArrayList<>();
+            }
+            List<Books> result = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Books book = copy(docs[i]);
+                book.setRating(ratings[i]);
+                result.add(book);
+            }
+            return result;
+        }
+    }
+
+    private static boolean isRatingOrder(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        Sort.Order first = orders.get(0);
+        if (!"rating".equals(first.getProperty()) || first.isAscending()) {
+            return false;
+        }
+        return orders.size() == 1
+                || (orders.size() == 2 && "id".equals(orders.get(1).getProperty()) && orders.get(1).isDescending());
+    }
+
+    private List<Books> copies(Postings postings, int from, int to) {
+        if (from >= to) {
+            return new ArrayList<>();
+        }
+        List<Books> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(copy(postings.doc(i)));
+        }
+        return result;
+    }
+
+    interface Postings {
+
+        int size();
+
+        int doc(int i);
+    }
+
+    static Postings postings(int[] docs) {
+        return new Postings() {
+            @Override
+            public int size() {
+                return docs.length;
+            }
+
+            @Override
+            public int doc(int i) {
+                return docs[i];
+            }
+        };
+    }
+
+    // Books objects in a heap array, indexed by hash maps
+    private static final class Heap extends CatalogSnapshot {
+
+        private final Books[] docs;
+
+        private final Map<String, int[]> byAuthor;
+
+        private final Map<String, int[]> byTitle;
+
+        Heap(Books[] docs) {
+            super(ratingsOf(docs));
+            this.docs = docs;
+            this.byAuthor = index(docs, book -> AuthorKey.of(book.getAuthor()));
+            this.byTitle = index(docs, book -> book.getTitle() == null ? null : normalise(book.getTitle()));
+        }
+
+        private static Map<String, int[]> index(Books[] docs, Function<Books, String> keyOf) {
+            Map<String, IntList> lists = new HashMap<>();
+            for (int doc = 0; doc < docs.length; doc++) {
+                String key = keyOf.apply(docs[doc]);
+                if (key != null) {
+                    lists.computeIfAbsent(key, k -> new IntList()).add(doc);
+                }
+            }
+            Map<String, int[]> index = new HashMap<>(lists.size() * 4 / 3 + 1);
+            lists.forEach((key, list) -> index.put(key, list.toArray()));
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return docs.length;
+        }
+
+        @Override
+        Postings authorPostings(String key) {
+            int[] docs = byAuthor.get(key);
+            return docs == null ? null : postings(docs);
+        }
+
+        @Override
+        Postings titlePostings(String key) {
+            int[] docs = byTitle.get(key);
+            return docs == null ? null : postings(docs);
+        }
+
+        // The Books objects keep their build-time rating; the current one is in the ratings array
+        @Override
+        Books copy(int doc) {
+            Books book = docs[doc];
+            return new Books(book.getId(), book.getTitle(), book.getAuthor(), book.getDate(),
+                    book.getViews(), book.getLikes(), book.getLink(), rating(doc));
+        }
+
+        @Override
+        public String title(int doc) {
+            return docs[doc].getTitle();
+        }
+
+        @Override
+        public String author(int doc) {
+            return docs[doc].getAuthor();
+        }
+
+        @Override
+        long id(int doc) {
+            Long id = docs[doc].getId();
+            return id == null ? Long.MIN_VALUE : id;
+        }
+
+        @Override
+        OffHeapCatalogSnapshot columns() {
+            Books[] current = new Books[docs.length];
+            for (int doc = 0; doc < docs.length; doc++) {
+                current[doc] = copy(doc);
+            }
+            return OffHeapCatalogSnapshot.build(current);
+        }
+    }
+
+    static final class IntList {
+
+        private int[] values = new int[1];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.demo.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link CatalogSnapshot} written to disk in the columnar layout of
+ * {@link OffHeapCatalogSnapshot}, so a restart can map it back and serve lookups without
+ * reading the catalog from the database. Layout, version {@value #VERSION}:
+ * <pre>
+ *   header   magic, version, column byte order, rows, written-at millis,
+ *            source checksum (length + UTF-8), section count, section lengths
+ *   sections the {@value OffHeapCatalogSnapshot#COLUMNS} columns in column order, then the
+ *            dictionaries; each starts on an 8-byte boundary
+ *   trailer  CRC32 of the header and every section
+ * </pre>
+ * The header is big-endian; columns keep the byte order of the machine that wrote them and
+ * are mapped read-only in that order. Any mismatch in magic, version, lengths or CRC fails
+ * the read, and the caller rebuilds from the database instead.
+ *
+ * The source checksum is the {@code CatalogFingerprint} of the CSV the catalog was imported
+ * from, which is how the store tells whether the file still describes the rows in MySQL.
+ *
+ * Of the search structures only the author and title lookups are in the file. The keyword,
+ * BM25, fuzzy-title and suggestion indexes are not persisted: at startup they are built from
+ * the mapped snapshot (see {@link CatalogSnapshotStore#loaded()}), so they never read the
+ * database either, but each still costs one in-memory pass over the catalog.
+ */
+final class CatalogSnapshotFile {
+
+    static final int MAGIC = 0x424B534E;
+
+    // 2: author groups keyed by AuthorKey rather than the lower-cased name
+    static final int VERSION = 2;
+
+    private static final int COLUMNS = OffHeapCatalogSnapshot.COLUMNS;
+
+    private static final int SECTIONS = COLUMNS + 1;
+
+    private static final int DICTIONARIES = COLUMNS;
+
+    private static final int MAX_CHECKSUM_BYTES = 1024;
+
+    private final CatalogSnapshot snapshot;
+
+    private final String sourceChecksum;
+
+    private final Instant writtenAt;
+
+    private CatalogSnapshotFile(CatalogSnapshot snapshot, String sourceChecksum, Instant writtenAt) {
+        this.snapshot = snapshot;
+        this.sourceChecksum = sourceChecksum;
+        this.writtenAt = writtenAt;
+    }
+
+    CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    // Empty when the catalog's source was not known at write time, which never matches
+    String sourceChecksum() {
+        return sourceChecksum;
+    }
+
+    Instant writtenAt() {
+        return writtenAt;
+    }
+
+    /**
+     * Writes to a sibling temporary file and moves it over {@code path}, so a crash mid-write
+     * leaves the previous file intact. Returns the number of bytes written.
+     */
+    static long write(CatalogSnapshot snapshot, String sourceChecksum, Path path) throws IOException {
+        OffHeapCatalogSnapshot columns = snapshot.columns();
+        ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+        for (int column = 0; column < COLUMNS; column++) {
+            sections[column] = columns.column(column);
+        }
+        sections[DICTIONARIES] = ByteBuffer.wrap(dictionaries(columns));
+
+        byte[] checksum = (sourceChecksum == null ? "" : sourceChecksum).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(align(29 + checksum.length + 8 * SECTIONS));
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .put((byte) (columns.order() == ByteOrder.BIG_ENDIAN ? 0 : 1))
+                .putInt(columns.size())
+                .putLong(System.currentTimeMillis())
+                .putInt(checksum.length)
+                .put(checksum)
+                .putInt(SECTIONS);
+        for (ByteBuffer section : sections) {
+            header.putLong(section.remaining());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.position());
+        header.clear();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long bytes;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+            for (ByteBuffer section : sections) {
+                crc.update(section.duplicate());
+                int length = section.remaining();
+                writeFully(channel, section);
+                writeFully(channel, ByteBuffer.allocate(align(length) - length));
+            }
+            writeFully(channel, ByteBuffer.allocate(8).putLong(0, crc.getValue()));
+            channel.force(true);
+            bytes = channel.size();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bytes;
+    }
+
+    /**
+     * Maps the file read-only and validates it end to end. The columns stay in the page cache
+     * rather than on the heap, and remain valid after the file is replaced by a newer write.
+     */
+    static CatalogSnapshotFile read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer fixed = readFully(channel, 25, crc);
+            if (fixed.getInt() != MAGIC) {
+                throw new IOException(path + " is not a catalog snapshot file");
+            }
+            int version = fixed.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has snapshot format version " + version + ", expected " + VERSION);
+            }
+            ByteOrder order = fixed.get() == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+            int rows = fixed.getInt();
+            Instant writtenAt = Instant.ofEpochMilli(fixed.getLong());
+            int checksumLength = fixed.getInt();
+            if (rows < 0 || checksumLength < 0 || checksumLength > MAX_CHECKSUM_BYTES) {
+                throw new IOException(path + " has a corrupt header");
+            }
+            String sourceChecksum = new String(readFully(channel, checksumLength, crc).array(), StandardCharsets.UTF_8);
+            if (readFully(channel, 4, crc).getInt() != SECTIONS) {
+                throw new IOException(path + " has a corrupt header");
+            }
+            ByteBuffer lengthsBuffer = readFully(channel, 8 * SECTIONS, crc);
+            long[] lengths = new long[SECTIONS];
+            long position = align(29 + checksumLength + 8 * SECTIONS);
+            long expectedSize = position + 8;
+            for (int section = 0; section < SECTIONS; section++) {
+                lengths[section] = lengthsBuffer.getLong();
+                if (lengths[section] < 0 || lengths[section] > Integer.MAX_VALUE) {
+                    throw new IOException(path + " has a corrupt section length");
+                }
+                expectedSize += align(lengths[section]);
+            }
+            if (channel.size() != expectedSize) {
+                throw new IOException(path + " is " + channel.size() + " bytes, expected " + expectedSize);
+            }
+
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            for (int section = 0; section < SECTIONS; section++) {
+                sections[section] = channel.map(FileChannel.MapMode.READ_ONLY, position, lengths[section]).order(order);
+                crc.update(sections[section].duplicate());
+                position += align(lengths[section]);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(8);
+            channel.read(trailer, position);
+            if (trailer.getLong(0) != crc.getValue()) {
+                throw new IOException(path + " failed its CRC check");
+            }
+
+            ByteBuffer[] columns = new ByteBuffer[COLUMNS];
+            System.arraycopy(sections, 0, columns, 0, COLUMNS);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes(sections[DICTIONARIES])));
+            String[] authorDictionary = readStrings(in);
+            YearMonth[] dateDictionary = new YearMonth[in.readInt()];
+            for (int code = 0; code < dateDictionary.length; code++) {
+                dateDictionary[code] = YearMonth.of(in.readInt(), in.readByte());
+            }
+            String[] authorKeys = readStrings(in);
+            if (!OffHeapCatalogSnapshot.fits(rows, authorKeys.length, lengths)) {
+                throw new IOException(path + " has column lengths that do not match its " + rows + " rows");
+            }
+
+            return new CatalogSnapshotFile(new OffHeapCatalogSnapshot(rows, columns, authorDictionary, dateDictionary, authorKeys),
+                    sourceChecksum, writtenAt);
+        }
+    }
+
+    private static byte[] dictionaries(OffHeapCatalogSnapshot columns) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeStrings(out, columns.authorDictionary());
+        out.writeInt(columns.dateDictionary().length);
+        for (YearMonth date : columns.dateDictionary()) {
+            out.writeInt(date.getYear());
+            out.writeByte(date.getMonthValue());
+        }
+        writeStrings(out, columns.authorKeys());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            byte[] utf8 = new byte[in.readInt()];
+            in.readFully(utf8);
+            values[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int length, CRC32 crc) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Catalog snapshot file ends inside its header");
+            }
+        }
+        crc.update(buffer.array(), 0, length);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    private static long align(long length) {
+        return (length + 7) & ~7L;
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Component.CatalogChangedEvent;
+import com.example.demo.Component.CatalogLoadedEvent;
+import com.example.demo.Component.RatingsFlushedEvent;
+import com.example.demo.Model.YearMonthConverter;
+import com.example.demo.Service.RatingCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds the {@link CatalogSnapshot}, the one in-memory load of the catalog. A new snapshot is
+ * read from the database off the request path when the catalog changes, swapped in with a
+ * single volatile write (readers never lock), and handed to the search indexes with a
+ * {@link CatalogLoadedEvent}; they build from it rather than reading the catalog themselves.
+ * In between, flushed rating increments are added to the snapshot in place, so nothing is
+ * re-read on a timer. A rebuild's scan may or may not see an increment flushed while it runs,
+ * so the books those increments touched are noted, and their ratings read back from the
+ * database when the new snapshot is swapped in. The swap happens between two flushes of the
+ * {@link RatingCounter}, which makes the read-back exact: every increment is counted once.
+ *
+ * Author and title lookups are served from {@link #current()}. MySQL stays the store of
+ * record: until the first load, or with {@code catalog.snapshot.enabled=false}, there is no
+ * snapshot to serve from and lookups go to the database; the indexes still use the load.
+ *
+ * {@code catalog.snapshot.layout=off-heap} keeps the snapshot as dictionary-encoded columns in
+ * direct memory instead of {@code Books} objects on the heap. That rebuild reads the table
+ * with plain JDBC in rating order and encodes each row as it arrives, so no {@code Books} are
+ * made and the heap stays flat while it runs; on MySQL the scan is streamed and holds its
+ * connection until the last row.
+ *
+ * With {@code catalog.snapshot.file} set, the snapshot is also saved to that file every
+ * {@code catalog.snapshot.file-interval-ms} and on shutdown. At startup a valid file is mapped
+ * and served straight away; when the startup import then reports the same source checksum the
+ * file was written for, the first rebuild is skipped, and otherwise it replaces the file's
+ * snapshot as usual, and when it skips, the file's ratings are read back from the database
+ * like a rebuild's would be. The save on shutdown runs after the {@link RatingCounter}'s final
+ * flush (see {@link RatingCounter#stop()}), so the file itself is only stale after a crash.
+ */
+@Component
+public class CatalogSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotStore.class);
+
+    // The same order as CatalogSnapshot.RATING_THEN_ID; ids are never null here
+    private static final String ROWS_SQL = "SELECT id, title, author, date, views, likes, link, rating FROM books ORDER BY rating DESC, id DESC";
+
+    // Sizes the columns up front; OCTET_LENGTH may overshoot on some databases, which the build trims
+    private static final String SIZE_SQL = "SELECT COUNT(*), COALESCE(SUM(OCTET_LENGTH(title)), 0) + COALESCE(SUM(OCTET_LENGTH(link)), 0) FROM books";
+
+    private static final String RATINGS_SQL = "SELECT id, rating FROM books";
+
+    private static final YearMonthConverter MONTHS = new YearMonthConverter();
+
+    private static final int RATINGS_BATCH = 500;
+
+    private final BookRepository bookRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final RatingCounter ratingCounter;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean enabled;
+
+    private final boolean offHeap;
+
+    private final Path file;
+
+    private final Object fileLock = new Object();
+
+    // Guards applying flushed increments against swapping the snapshot they apply to
+    private final Object ratingsLock = new Object();
+
+    // Books whose ratings were flushed since the running rebuild started, or null when none is running
+    private Set<Long> flushedDuringRebuild;
+
+    private volatile Served served;
+
+    private CatalogSnapshot saved;
+
+    private long savedRatingVersion;
+
+    public CatalogSnapshotStore(@Qualifier("repositoryA") BookRepository bookRepository,
+                                JdbcTemplate jdbcTemplate,
+                                RatingCounter ratingCounter,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${catalog.snapshot.enabled:true}") boolean enabled,
+                                @Value("${catalog.snapshot.layout:heap}") String layout,
+                                @Value("${catalog.snapshot.file:}") String file) {
+        if (!"heap".equals(layout) && !"off-heap".equals(layout)) {
+            throw new IllegalArgumentException("catalog.snapshot.layout must be heap or off-heap but was " + layout);
+        }
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ratingCounter = ratingCounter;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.offHeap = "off-heap".equals(layout);
+        this.file = file.isEmpty() ? null : Paths.get(file);
+    }
+
+    // The snapshot to serve from, or null when lookups should go to the database
+    public CatalogSnapshot current() {
+        return enabled ? loaded() : null;
+    }
+
+    // The latest load of the catalog whether or not lookups are served from it, or null before the first
+    public CatalogSnapshot loaded() {
+        Served current = served;
+        return current == null ? null : current.snapshot;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            CatalogSnapshotFile read = CatalogSnapshotFile.read(file);
+            synchronized (this) {
+                if (served != null) {
+                    return;
+                }
+                served = new Served(read.snapshot(), read.sourceChecksum(), true);
+            }
+            synchronized (fileLock) {
+                saved = read.snapshot();
+                savedRatingVersion = saved.ratingVersion();
+            }
+            log.info("Catalog snapshot of {} books loaded from {} (written {}) in {} ms", read.snapshot().size(),
+                    file, read.writtenAt(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring catalog snapshot file {}, lookups use the database until the next rebuild", file, e);
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        String checksum = event.getSourceChecksum();
+        synchronized (this) {
+            Served current = served;
+            if (current != null && current.fromFile && event.getRows() == 0
+                    && checksum != null && checksum.equals(current.sourceChecksum)) {
+                log.info("Catalog snapshot file matches source checksum {}, skipping the rebuild", checksum);
+                refreshRatings(current.snapshot);
+                served = new Served(current.snapshot, checksum, false);
+                return;
+            }
+        }
+        rebuild(checksum);
+    }
+
+    @EventListener
+    public void onRatingsFlushed(RatingsFlushedEvent event) {
+        synchronized (ratingsLock) {
+            Served current = served;
+            if (current != null) {
+                current.snapshot.apply(event.getDeltas());
+            }
+            if (flushedDuringRebuild != null) {
+                flushedDuringRebuild.addAll(event.getDeltas().keySet());
+            }
+        }
+    }
+
+    public synchronized void rebuild() {
+        Served current = served;
+        rebuild(current == null ? null : current.sourceChecksum);
+    }
+
+    private synchronized void rebuild(String checksum) {
+        long start = System.nanoTime();
+        synchronized (ratingsLock) {
+            flushedDuringRebuild = new HashSet<>();
+        }
+        CatalogSnapshot rebuilt;
+        try {
+            rebuilt = offHeap ? readColumns() : CatalogSnapshot.build(bookRepository.findAll());
+        } catch (RuntimeException e) {
+            synchronized (ratingsLock) {
+                flushedDuringRebuild = null;
+            }
+            throw e;
+        }
+        swap(rebuilt, checksum);
+        log.info("Catalog snapshot ({}) built over {} books in {} ms", offHeap ? "off-heap" : "heap",
+                rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+        eventPublisher.publishEvent(new CatalogLoadedEvent(this, rebuilt));
+    }
+
+    // No flush is under way while this runs, so every increment the scan may have missed is in flushedDuringRebuild
+    private void swap(CatalogSnapshot rebuilt, String checksum) {
+        ratingCounter.betweenFlushes(() -> {
+            synchronized (ratingsLock) {
+                if (!flushedDuringRebuild.isEmpty()) {
+                    rebuilt.reset(ratingsOf(flushedDuringRebuild));
+                }
+                flushedDuringRebuild = null;
+                served = new Served(rebuilt, checksum, false);
+            }
+        });
+    }
+
+    // The file's ratings are as of its last save; the database has every increment flushed before the shutdown
+    private void refreshRatings(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        ratingCounter.betweenFlushes(() -> {
+            synchronized (ratingsLock) {
+                Map<Long, Integer> batch = new HashMap<>(RATINGS_BATCH * 4 / 3 + 1);
+                jdbcTemplate.query(RATINGS_SQL, (RowCallbackHandler) rs -> {
+                    batch.put(rs.getLong("id"), rs.getInt("rating"));
+                    if (batch.size() == RATINGS_BATCH) {
+                        snapshot.reset(batch);
+                        batch.clear();
+                    }
+                });
+                snapshot.reset(batch);
+            }
+        });
+        log.info("Catalog snapshot ratings refreshed from the database in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Current ratings of the given books, read in batches of bound ids
+    private Map<Long, Integer> ratingsOf(Collection<Long> ids) {
+        Map<Long, Integer> ratings = new HashMap<>(ids.size() * 4 / 3 + 1);
+        List<Long> batch = new ArrayList<>(RATINGS_BATCH);
+        for (Long id : ids) {
+            batch.add(id);
+            if (batch.size() == RATINGS_BATCH) {
+                readRatings(batch, ratings);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            readRatings(batch, ratings);
+        }
+        return ratings;
+    }
+
+    private void readRatings(List<Long> ids, Map<Long, Integer> ratings) {
+        String sql = RATINGS_SQL + " WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> ratings.put(rs.getLong("id"), rs.getInt("rating")), ids.toArray());
+    }
+
+    // Rows go from the result set straight into the columns, in the order the positions follow
+    private OffHeapCatalogSnapshot readColumns() {
+        long[] expected = jdbcTemplate.query(SIZE_SQL,
+                (ResultSetExtractor<long[]>) rs -> rs.next() ? new long[]{rs.getLong(1), rs.getLong(2)} : null);
+        OffHeapCatalogSnapshot.Builder builder = expected == null ? new OffHeapCatalogSnapshot.Builder(0, 0)
+                : new OffHeapCatalogSnapshot.Builder((int) Math.min(expected[0], Integer.MAX_VALUE), expected[1]);
+        try {
+            jdbcTemplate.query(CatalogSnapshotStore::scan, (RowCallbackHandler) rs -> {
+                int month = rs.getInt("date");
+                YearMonth date = rs.wasNull() ? null : MONTHS.convertToEntityAttribute(month);
+                builder.add(rs.getLong("id"), rs.getString("title"), rs.getString("author"), date,
+                        rs.getLong("views"), rs.getInt("likes"), rs.getString("link"), rs.getInt("rating"));
+            });
+            return builder.build();
+        } catch (RuntimeException e) {
+            builder.release();
+            throw e;
+        }
+    }
+
+    // Connector/J streams the scan row by row (see BookRepositoryCustom.STREAM_FETCH_SIZE); other drivers keep their default
+    private static PreparedStatement scan(Connection connection) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(ROWS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if ("MySQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            statement.setFetchSize(BookRepositoryCustom.STREAM_FETCH_SIZE);
+        }
+        return statement;
+    }
+
+    /**
+     * Writes the current snapshot to {@code catalog.snapshot.file} unless that snapshot, with
+     * the same ratings, is already there. Runs on its own lock, so a slow disk never holds up
+     * a rebuild.
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.file-interval-ms:600000}",
+            initialDelayString = "${catalog.snapshot.file-interval-ms:600000}")
+    @PreDestroy
+    public void save() {
+        if (file == null) {
+            return;
+        }
+        synchronized (fileLock) {
+            Served current = served;
+            if (current == null || (current.snapshot == saved && saved.ratingVersion() == savedRatingVersion)) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                long ratingVersion = current.snapshot.ratingVersion();
+                long bytes = CatalogSnapshotFile.write(current.snapshot, current.sourceChecksum, file);
+                saved = current.snapshot;
+                savedRatingVersion = ratingVersion;
+                log.info("Catalog snapshot of {} books saved to {} ({} bytes) in {} ms", current.snapshot.size(), file,
+                        bytes, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not save the catalog snapshot to {}", file, e);
+            }
+        }
+    }
+
+    // The snapshot with the source it was built from, swapped as one so a save never mixes them
+    private static final class Served {
+
+        final CatalogSnapshot snapshot;
+
+        // Fingerprint of the imported source, or null when unknown
+        final String sourceChecksum;
+
+        final boolean fromFile;
+
+        Served(CatalogSnapshot snapshot, String sourceChecksum, boolean fromFile) {
+            this.snapshot = snapshot;
+            this.sourceChecksum = sourceChecksum;
+            this.fromFile = fromFile;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Model.AuthorKey;
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.Books;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * Keyword search served by the {@code ft_books_title_author} FULLTEXT index with
+ * {@code MATCH ... AGAINST} in boolean mode, instead of {@code LIKE '%kw%'} scans.
+ * Note that InnoDB does not index stop words or tokens shorter than
+ * {@code innodb_ft_min_token_size}.
+ *
+ * Enabled with {@code catalog.search.index=fulltext}; it then takes the place of
+ * {@link BookRepositoryImpl} as the {@code repositoryB} bean.
+ */
+@Repository
+@Primary
+@Qualifier("repositoryB")
+@ConditionalOnProperty(name = "catalog.search.index", havingValue = "fulltext")
+public class FullTextBookRepository implements BookRepositoryCustom {
+
+    private static final String MATCH = "MATCH(title, author) AGAINST (:terms IN BOOLEAN MODE)";
+
+    private static final String AFTER_CURSOR = "(rating < :rating OR (rating = :rating AND id < :id))";
+
+    // Sortable properties and their columns; anything else is rejected before reaching SQL
+    private static final Map<String, String> COLUMNS = Map.of(
+            "id", "id", "title", "title", "author", "author", "rating", "rating",
+            "views", "views", "likes", "likes", "date", "date");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Books> findByKeywords(List<String> keywords, Sort sort) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT * FROM books WHERE " + MATCH + orderBy(sort), Books.class);
+        query.setParameter("terms", terms(keywords));
+        return resultList(query);
+    }
+
+    @Override
+    public List<Books> findByKeywords(List<String> keywords, Pageable pageable) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT * FROM books WHERE " + MATCH + orderBy(pageable.getSort()), Books.class);
+        query.setParameter("terms", terms(keywords));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return resultList(query);
+    }
+
+    @Override
+    public List<Books> findByKeywordsAfter(List<String> keywords, BookCursor after, int limit) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT * FROM books WHERE " + MATCH + " AND " + AFTER_CURSOR + " ORDER BY rating DESC, id DESC", Books.class);
+        query.setParameter("terms", terms(keywords));
+        query.setParameter("rating", after.getRating());
+        query.setParameter("id", after.getId());
+        query.setMaxResults(limit);
+        return resultList(query);
+    }
+
+    @Override
+    public List<Books> findByTitleOrKeywords(String title, List<String> keywords, Pageable pageable) {
+        // UNION ALL lets each branch use its own index; the second branch skips the exact matches
+        Query query = entityManager.createNativeQuery(
+                "SELECT * FROM (SELECT b.*, 0 AS match_rank FROM books b WHERE b.title = :title"
+                        + " UNION ALL SELECT b.*, 1 AS match_rank FROM books b WHERE " + MATCH.replace("title, author", "b.title, b.author")
+                        + " AND b.title <> :title) matches"
+                        + orderBy(Sort.by("match_rank").and(pageable.getSort())), Books.class);
+        query.setParameter("title", title);
+        query.setParameter("terms", terms(keywords));
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return resultList(query);
+    }
+
+    @Override
+    public List<Books> findByTitleOrKeywordsAfter(String title, List<String> keywords, BookCursor after, int limit) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT * FROM books WHERE " + MATCH + " AND title <> :title AND " + AFTER_CURSOR
+                        + " ORDER BY rating DESC, id DESC", Books.class);
+        query.setParameter("terms", terms(keywords));
+        query.setParameter("title", title);
+        query.setParameter("rating", after.getRating());
+        query.setParameter("id", after.getId());
+        query.setMaxResults(limit);
+        return resultList(query);
+    }
+
+    @Override
+    public Stream<Books> streamByAuthor(String author, Sort sort) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT * FROM books WHERE author_key = :authorKey" + orderBy(sort), Books.class);
+        query.setParameter("authorKey", AuthorKey.of(author));
+        return resultStream(query);
+    }
+
+    @Override
+    public Stream<Books> streamByTitleOrKeywords(String title, List<String> keywords, Sort sort) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT * FROM (SELECT b.*, 0 AS match_rank FROM books b WHERE b.title = :title"
+                        + " UNION ALL SELECT b.*, 1 AS match_rank FROM books b WHERE " + MATCH.replace("title, author", "b.title, b.author")
+                        + " AND b.title <> :title) matches"
+                        + orderBy(Sort.by("match_rank").and(sort)), Books.class);
+        query.setParameter("title", title);
+        query.setParameter("terms", terms(keywords));
+        return resultStream(query);
+    }
+
+    // Boolean-mode terms, OR semantics like the LIKE search; operator characters are dropped
+    static String terms(List<String> keywords) {
+        StringJoiner terms = new StringJoiner(" ");
+        for (String keyword : keywords) {
+            for (String token : KeywordTokenizer.tokenize(keyword)) {
+                terms.add(token);
+            }
+        }
+        return terms.toString();
+    }
+
+    static String orderBy(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return "";
+        }
+        StringJoiner orders = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order order : sort) {
+            String column = "match_rank".equals(order.getProperty()) ? "match_rank" : COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            }
+            orders.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return orders.toString();
+    }
+
+    // Native results are managed entities; read-only skips their snapshots, and nothing is flushed first
+    @SuppressWarnings("unchecked")
+    private static List<Books> resultList(Query query) {
+        query.setHint(QueryHints.HINT_READONLY, true);
+        query.setHint(QueryHints.HINT_FLUSH_MODE, "COMMIT");
+        return new ArrayList<>((List<Books>) query.getResultList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stream<Books> resultStream(Query query) {
+        query.setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+        query.setHint(QueryHints.HINT_READONLY, true);
+        query.setHint(QueryHints.HINT_FLUSH_MODE, "COMMIT");
+        return ((Stream<Books>) query.getResultStream()).peek(entityManager::detach);
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Component.CatalogLoadedEvent;
+import com.example.demo.Model.Books;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Typo-tolerant title search. Titles are split into words; every distinct word of the catalog
+ * is indexed by its padded trigrams, and every word points at the titles containing it.
+ *
+ * For each query word, candidate words are the ones sharing enough trigrams to possibly lie
+ * within the allowed edit distance (a single edit changes at most three trigrams). At most
+ * {@code maxCandidates} of them, those sharing the most trigrams, are verified with a bounded
+ * Levenshtein distance. Titles are then scored by how many query words they match and how
+ * closely, with rating as tie-breaker. The work depends on the vocabulary and the posting
+ * lists touched, not on the number of titles. Like {@link Bm25SearchIndex}, it indexes the
+ * shared {@link CatalogSnapshot} and hands out copies.
+ */
+@Component
+public class FuzzyTitleIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FuzzyTitleIndex.class);
+
+    private final CatalogSnapshotStore catalogSnapshotStore;
+
+    private final int maxCandidates;
+
+    private volatile Index index = Index.build(CatalogSnapshot.build(Collections.emptyList()));
+
+    public FuzzyTitleIndex(CatalogSnapshotStore catalogSnapshotStore,
+                           @Value("${catalog.search.fuzzy.max-candidates:200}") int maxCandidates) {
+        this.catalogSnapshotStore = catalogSnapshotStore;
+        this.maxCandidates = Math.max(1, maxCandidates);
+    }
+
+    @PostConstruct
+    public void load() {
+        CatalogSnapshot snapshot = catalogSnapshotStore.loaded();
+        if (snapshot != null) {
+            rebuild(snapshot);
+        }
+    }
+
+    @EventListener
+    public void onCatalogLoaded(CatalogLoadedEvent event) {
+        rebuild(event.getSnapshot());
+    }
+
+    public synchronized void rebuild(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        index = Index.build(snapshot);
+        log.info("Fuzzy title index built over {} books and {} words in {} ms",
+                snapshot.size(), index.words.length, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<Books> search(String text, long offset, int limit) {
+        if (limit <= 0 || offset + limit > Integer.MAX_VALUE) {
+            return Collections.emptyList();
+        }
+        Index current = index;
+        List<String> terms = Bm25SearchIndex.queryTerms(Collections.singletonList(text));
+
+        // One cursor per matched vocabulary word, tagged with the query word it stands for
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+        for (int term = 0; term < terms.size(); term++) {
+            String queryWord = terms.get(term);
+            int maxEdits = maxEdits(queryWord.length());
+            for (int word : current.candidates(queryWord, maxEdits, maxCandidates)) {
+                int distance = distance(queryWord, current.words[word], maxEdits);
+                if (distance <= maxEdits) {
+                    cursors.add(new Cursor(current.titles[word], term, 1.0 - (double) distance / (maxEdits + 1)));
+                }
+            }
+        }
+
+        Bm25SearchIndex.TopK top = new Bm25SearchIndex.TopK((int) (offset + limit));
+        double[] best = new double[terms.size()];
+        while (cursors.size() > 1) {
+            int doc = cursors.peek().doc();
+            Arrays.fill(best, 0);
+            while (!cursors.isEmpty() && cursors.peek().doc() == doc) {
+                Cursor cursor = cursors.poll();
+                best[cursor.term] = Math.max(best[cursor.term], cursor.weight);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+            double score = 0;
+            for (double weight : best) {
+                score += weight;
+            }
+            top.offer(doc, score + 1e-3 * Math.log1p(Math.max(0, current.docs.rating(doc))));
+        }
+        // A single remaining list needs no merging
+        Cursor last = cursors.poll();
+        while (last != null) {
+            int doc = last.doc();
+            top.offer(doc, last.weight + 1e-3 * Math.log1p(Math.max(0, current.docs.rating(doc))));
+            last = last.advance() ? last : null;
+        }
+
+        int[] ranked = top.drainDescending();
+        List<Books> result = new ArrayList<>(Math.max(0, ranked.length - (int) offset));
+        for (int i = (int) offset; i < ranked.length; i++) {
+            result.add(current.docs.copy(ranked[i]));
+        }
+        return result;
+    }
+
+    // Short words tolerate fewer typos, otherwise everything matches everything
+    static int maxEdits(int length) {
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Levenshtein distance, or {@code maxEdits + 1} as soon as it is known to exceed
+     * {@code maxEdits}. Only the diagonal band of width {@code 2 * maxEdits + 1} is filled.
+     */
+    static int distance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+        int over = maxEdits + 1;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = Math.min(j, over);
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - maxEdits);
+            int to = Math.min(b.length(), i + maxEdits);
+            current[0] = Math.min(i, over);
+            if (from > 1) {
+                current[from - 1] = over;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                current[j] = Math.min(value, over);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length()) {
+                current[to + 1] = over;
+            }
+            if (rowMin >= over) {
+                return over;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    static List<String> trigrams(String word) {
+        String padded = "$$" + word + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    static final class Index {
+
+        final CatalogSnapshot docs;
+
+        // Distinct title words, and the sorted titles containing each
+        final String[] words;
+
+        final int[][] titles;
+
+        // Trigram -> sorted word ids
+        final Map<String, int[]> grams;
+
+        private Index(CatalogSnapshot docs, String[] words, int[][] titles, Map<String, int[]> grams) {
+            this.docs = docs;
+            this.words = words;
+            this.titles = titles;
+            this.grams = grams;
+        }
+
+        /**
+         * Words sharing at least {@code grams - 3 * maxEdits} trigrams with the query word and of
+         * a length within {@code maxEdits}, best {@code limit} by shared trigrams.
+         */
+        int[] candidates(String queryWord, int maxEdits, int limit) {
+            List<String> queryGrams = trigrams(queryWord);
+            int threshold = Math.max(1, queryGrams.size() - 3 * maxEdits);
+            List<int[]> lists = new ArrayList<>(queryGrams.size());
+            for (String gram : queryGrams) {
+                int[] list = grams.get(gram);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            if (lists.size() < threshold) {
+                return new int[0];
+            }
+
+            // Walk the trigram lists word-at-a-time, counting how many contain each word
+            List<long[]> passing = new ArrayList<>();
+            int[] positions = new int[lists.size()];
+            while (true) {
+                int word = Integer.MAX_VALUE;
+                for (int i = 0; i < lists.size(); i++) {
+                    if (positions[i] < lists.get(i).length) {
+                        word = Math.min(word, lists.get(i)[positions[i]]);
+                    }
+                }
+                if (word == Integer.MAX_VALUE) {
+                    break;
+                }
+                int shared = 0;
+                for (int i = 0; i < lists.size(); i++) {
+                    if (positions[i] < lists.get(i).length && lists.get(i)[positions[i]] == word) {
+                        shared++;
+                        positions[i]++;
+                    }
+                }
+                if (shared >= threshold && Math.abs(words[word].length() - queryWord.length()) <= maxEdits) {
+                    passing.add(new long[]{shared, word});
+                }
+            }
+            passing.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+            int[] result = new int[Math.min(limit, passing.size())];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (int) passing.get(i)[1];
+            }
+            return result;
+        }
+
+        static Index build(CatalogSnapshot docs) {
+            Map<String, Integer> wordIds = new HashMap<>();
+            List<String> words = new ArrayList<>();
+            List<IntList> titles = new ArrayList<>();
+            for (int doc = 0; doc < docs.size(); doc++) {
+                for (String token : KeywordTokenizer.tokenize(docs.title(doc))) {
+                    Integer id = wordIds.get(token);
+                    if (id == null) {
+                        id = words.size();
+                        wordIds.put(token, id);
+                        words.add(token);
+                        titles.add(new IntList());
+                    }
+                    titles.get(id).addIfNew(doc);
+                }
+            }
+
+            int[][] titleLists = new int[titles.size()][];
+            Map<String, IntList> building = new HashMap<>();
+            for (int word = 0; word < words.size(); word++) {
+                titleLists[word] = titles.get(word).toArray();
+                for (String gram : trigrams(words.get(word))) {
+                    building.computeIfAbsent(gram, g -> new IntList()).addIfNew(word);
+                }
+            }
+            Map<String, int[]> grams = new HashMap<>(building.size() * 2);
+            for (Map.Entry<String, IntList> entry : building.entrySet()) {
+                grams.put(entry.getKey(), entry.getValue().toArray());
+            }
+            return new Index(docs, words.toArray(new String[0]), titleLists, grams);
+        }
+    }
+
+    // Ascending ids, appended in order, so a repeat only needs a check of the last entry
+    private static final class IntList {
+
+        private int[] values = new int[2];
+
+        private int size;
+
+        void addIfNew(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+
+        private final int[] docs;
+
+        private final int term;
+
+        private final double weight;
+
+        private int position;
+
+        Cursor(int[] docs, int term, double weight) {
+            this.docs = docs;
+            this.term = term;
+            this.weight = weight;
+        }
+
+        int doc() {
+            return docs[position];
+        }
+
+        boolean advance() {
+            return ++position < docs.length;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Integer.compare(doc(), other.doc());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Component.CatalogLoadedEvent;
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.Books;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * In-process keyword search over titles and authors. Every token maps to a sorted
+ * {@code int[]} posting list of positions in the document array, so a query is a union
+ * of posting lists instead of a {@code LIKE '%kw%'} table scan. Documents are the positions
+ * of the shared {@link CatalogSnapshot}; the index is rebuilt whenever a new one is loaded
+ * and swapped in atomically, and reads the snapshot's current ratings in between. Matches
+ * are handed out and sorted as copies, so callers never touch the indexed books.
+ *
+ * Enabled with {@code catalog.search.index=inverted}; it then takes the place of
+ * {@link BookRepositoryImpl} as the {@code repositoryB} bean.
+ */
+@Repository
+@Primary
+@Qualifier("repositoryB")
+@ConditionalOnProperty(name = "catalog.search.index", havingValue = "inverted")
+public class InvertedIndexBookRepository implements BookRepositoryCustom {
+
+    private static final Logger log = LoggerFactory.getLogger(InvertedIndexBookRepository.class);
+
+    private static final Comparator<Books> RATING_THEN_ID = comparatorFor(
+            Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id")));
+
+    private final BookRepository bookRepository;
+
+    private final CatalogSnapshotStore catalogSnapshotStore;
+
+    private volatile Index index = Index.build(CatalogSnapshot.build(Collections.emptyList()));
+
+    public InvertedIndexBookRepository(@Qualifier("repositoryA") BookRepository bookRepository,
+                                       CatalogSnapshotStore catalogSnapshotStore) {
+        this.bookRepository = bookRepository;
+        this.catalogSnapshotStore = catalogSnapshotStore;
+    }
+
+    @PostConstruct
+    public void load() {
+        CatalogSnapshot snapshot = catalogSnapshotStore.loaded();
+        if (snapshot != null) {
+            rebuild(snapshot);
+        }
+    }
+
+    @EventListener
+    public void onCatalogLoaded(CatalogLoadedEvent event) {
+        rebuild(event.getSnapshot());
+    }
+
+    public synchronized void rebuild(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        index = Index.build(snapshot);
+        log.info("Keyword index built over {} books in {} ms", snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public int size() {
+        return index.docs.size();
+    }
+
+    @Override
+    public List<Books> findByKeywords(List<String> keywords, Sort sort) {
+        List<Books> result = match(keywords);
+        Comparator<Books> comparator = comparatorFor(sort);
+        if (comparator != null) {
+            result.sort(comparator);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Books> findByKeywords(List<String> keywords, Pageable pageable) {
+        List<Books> result = findByKeywords(keywords, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return result;
+        }
+        return slice(result, pageable.getOffset(), pageable.getPageSize());
+    }
+
+    @Override
+    public List<Books> findByKeywordsAfter(List<String> keywords, BookCursor after, int limit) {
+        List<Books> result = new ArrayList<>();
+        for (Books book : match(keywords)) {
+            if (after.precedes(book)) {
+                result.add(book);
+            }
+        }
+        result.sort(RATING_THEN_ID);
+        return slice(result, 0, limit);
+    }
+
+    @Override
+    public List<Books> findByTitleOrKeywords(String title, List<String> keywords, Pageable pageable) {
+        return slice(titleOrKeywordMatches(title, keywords, pageable.getSort()), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    @Override
+    public List<Books> findByTitleOrKeywordsAfter(String title, List<String> keywords, BookCursor after, int limit) {
+        Index current = index;
+        BitSet matches = current.match(keywords);
+        matches.andNot(current.exactTitle(title));
+
+        List<Books> result = new ArrayList<>();
+        for (Books book : current.books(matches)) {
+            if (after.precedes(book)) {
+                result.add(book);
+            }
+        }
+        result.sort(RATING_THEN_ID);
+        return slice(result, 0, limit);
+    }
+
+    // Authors are not indexed here; the database cursor streams them
+    @Override
+    public Stream<Books> streamByAuthor(String author, Sort sort) {
+        return bookRepository.streamByAuthor(author, sort);
+    }
+
+    // The matches are already in memory, so only the ordering is paid for
+    @Override
+    public Stream<Books> streamByTitleOrKeywords(String title, List<String> keywords, Sort sort) {
+        return titleOrKeywordMatches(title, keywords, sort).stream();
+    }
+
+    // Exact title matches, then the other keyword matches, each part in the requested order
+    private List<Books> titleOrKeywordMatches(String title, List<String> keywords, Sort sort) {
+        Index current = index;
+        BitSet exact = current.exactTitle(title);
+        BitSet matches = current.match(keywords);
+        matches.andNot(exact);
+
+        Comparator<Books> order = sort != null && sort.isSorted() ? comparatorFor(sort) : RATING_THEN_ID;
+        List<Books> result = current.books(exact);
+        result.sort(order);
+        List<Books> keywordMatches = current.books(matches);
+        keywordMatches.sort(order);
+        result.addAll(keywordMatches);
+        return result;
+    }
+
+    private List<Books> match(List<String> keywords) {
+        Index current = index;
+        return current.books(current.match(keywords));
+    }
+
+    private static List<Books> slice(List<Books> books, long offset, int limit) {
+        if (offset >= books.size()) {
+            return Collections.emptyList();
+        }
+        int from = (int) offset;
+        return new ArrayList<>(books.subList(from, Math.min(books.size(), from + limit)));
+    }
+
+    static Comparator<Books> comparatorFor(Sort sort) {
+        Comparator<Books> comparator = null;
+        if (sort == null) {
+            return null;
+        }
+        for (Sort.Order order : sort) {
+            Comparator<Books> next = propertyComparator(order.getProperty());
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static Comparator<Books> propertyComparator(String property) {
+        switch (property) {
+            case "rating":
+                return Comparator.comparingInt(Books::getRating);
+            case "id":
+                return Comparator.comparing(Books::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "title":
+                return Comparator.comparing(Books::getTitle, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "author":
+                return Comparator.comparing(Books::getAuthor, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "views":
+                return Comparator.comparingLong(Books::getViews);
+            case "likes":
+                return Comparator.comparingInt(Books::getLikes);
+            case "date":
+                return Comparator.comparing(Books::getDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default:
+                throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+    }
+
+    static final class Index {
+
+        final CatalogSnapshot docs;
+
+        final Map<String, int[]> postings;
+
+        // Lower-cased title -> documents, for exact title matches (case-insensitive like the database collation)
+        final Map<String, int[]> titles;
+
+        Index(CatalogSnapshot docs, Map<String, int[]> postings, Map<String, int[]> titles) {
+            this.docs = docs;
+            this.postings = postings;
+            this.titles = titles;
+        }
+
+        BitSet match(List<String> keywords) {
+            BitSet matches = new BitSet(docs.size());
+            for (String keyword : keywords) {
+                for (String token : KeywordTokenizer.tokenize(keyword)) {
+                    int[] list = postings.get(token);
+                    if (list != null) {
+                        for (int doc : list) {
+                            matches.set(doc);
+                        }
+                    }
+                }
+            }
+            return matches;
+        }
+
+        BitSet exactTitle(String title) {
+            BitSet matches = new BitSet(docs.size());
+            int[] list = title == null ? null : titles.get(title.toLowerCase(Locale.ROOT));
+            if (list != null) {
+                for (int doc : list) {
+                    matches.set(doc);
+                }
+            }
+            return matches;
+        }
+
+        // Copies carrying the current rating, so the caller may sort and change them
+        List<Books> books(BitSet matches) {
+            List<Books> result = new ArrayList<>(matches.cardinality());
+            for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+                result.add(docs.copy(doc));
+            }
+            return result;
+        }
+
+        static Index build(CatalogSnapshot docs) {
+            Map<String, PostingsBuilder> building = new HashMap<>();
+            Map<String, PostingsBuilder> buildingTitles = new HashMap<>();
+            for (int doc = 0; doc < docs.size(); doc++) {
+                String title = docs.title(doc);
+                if (title != null) {
+                    buildingTitles.computeIfAbsent(title.toLowerCase(Locale.ROOT), t -> new PostingsBuilder()).add(doc);
+                }
+                List<String> tokens = KeywordTokenizer.tokenize(title);
+                tokens.addAll(KeywordTokenizer.tokenize(docs.author(doc)));
+                for (String token : tokens) {
+                    building.computeIfAbsent(token, t -> new PostingsBuilder()).add(doc);
+                }
+            }
+
+            return new Index(docs, toArrays(building), toArrays(buildingTitles));
+        }
+
+        private static Map<String, int[]> toArrays(Map<String, PostingsBuilder> building) {
+            Map<String, int[]> postings = new HashMap<>(building.size() * 2);
+            for (Map.Entry<String, PostingsBuilder> entry : building.entrySet()) {
+                postings.put(entry.getKey(), entry.getValue().toArray());
+            }
+            return postings;
+        }
+    }
+
+    private static final class PostingsBuilder {
+
+        private int[] docs = new int[4];
+
+        private int size;
+
+        void add(int doc) {
+            // Documents are added in order, so a repeated token only needs a check of the last entry
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(docs, size);
+        }
+    }
+}
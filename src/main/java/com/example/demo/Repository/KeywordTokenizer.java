@@ -0,0 +1,44 @@
+package com.example.demo.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public final class KeywordTokenizer {
+
+    // Common English words that carry no ranking signal on their own
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "how", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "was", "what", "we", "why", "with", "you", "your");
+
+    private KeywordTokenizer() {
+    }
+
+    public static boolean isStopWord(String token) {
+        return STOP_WORDS.contains(token);
+    }
+
+    // Lower-cases the text and splits it on anything that is not a letter or a digit
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetterOrDigit(text.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(text.substring(start).toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,591 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Model.AuthorKey;
+import com.example.demo.Model.Books;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Catalog snapshot held as columns in direct memory, so the heap only carries the small
+ * dictionaries and GC work no longer grows with the catalog:
+ * <ul>
+ *   <li>id, views, likes and rating are fixed-width columns;</li>
+ *   <li>author and date are dictionary codes; the distinct values stay on the heap;</li>
+ *   <li>titles and links are UTF-8 in one byte arena, addressed by an offsets column
+ *       (the title of row r spans {@code [offsets[2r], offsets[2r+1])}, its link runs to
+ *       {@code offsets[2r+2]});</li>
+ *   <li>the author index is a CSR layout: each author's rows, in rating order, are one run
+ *       of {@code authorPostings};</li>
+ *   <li>the title index is an open hash table of chains threaded through {@code titleNext},
+ *       with each row's title hash kept alongside to skip decoding on collisions.</li>
+ * </ul>
+ * The rating column only seeds the snapshot's rating array: that array, four bytes a row on
+ * the heap, takes the written-back increments and is what a save writes out, so a mapped
+ * file is never written to. Rows are only decoded into {@code Books} for the page being
+ * returned. A snapshot's memory is released when it is garbage collected, as readers may still
+ * hold the one a rebuild replaced; size {@code -XX:MaxDirectMemorySize} for two snapshots plus
+ * an eighth, since a rebuild briefly overlaps the one it replaces. The same columns are
+ * what {@link CatalogSnapshotFile} writes out and maps back in.
+ */
+final class OffHeapCatalogSnapshot extends CatalogSnapshot {
+
+    private static final Object UNSAFE = findUnsafe();
+
+    private static final Method INVOKE_CLEANER = findInvokeCleaner();
+
+    private static final int NULL_CODE = -1;
+
+    private static final char NULL_DATE = Character.MAX_VALUE;
+
+    // Per-row null markers for the nullable columns that have no spare value
+    private static final byte NULL_ID = 1;
+
+    private static final byte NULL_TITLE = 2;
+
+    private static final byte NULL_LINK = 4;
+
+    // Column order, shared with the snapshot file
+    static final int IDS = 0;
+
+    static final int VIEWS = 1;
+
+    static final int LIKES = 2;
+
+    static final int RATINGS = 3;
+
+    static final int AUTHORS = 4;
+
+    static final int DATES = 5;
+
+    static final int NULLS = 6;
+
+    static final int OFFSETS = 7;
+
+    static final int ARENA = 8;
+
+    static final int AUTHOR_STARTS = 9;
+
+    static final int AUTHOR_POSTINGS = 10;
+
+    static final int TITLE_HEADS = 11;
+
+    static final int TITLE_NEXT = 12;
+
+    static final int TITLE_HASHES = 13;
+
+    static final int COLUMNS = 14;
+
+    private final int size;
+
+    private final ByteBuffer[] columns;
+
+    private final LongBuffer ids;
+
+    private final LongBuffer views;
+
+    private final IntBuffer likes;
+
+    private final IntBuffer authors;
+
+    private final CharBuffer dates;
+
+    private final ByteBuffer nulls;
+
+    private final IntBuffer offsets;
+
+    private final ByteBuffer arena;
+
+    private final String[] authorDictionary;
+
+    private final YearMonth[] dateDictionary;
+
+    private final String[] authorKeys;
+
+    private final Map<String, Integer> authorGroups;
+
+    private final IntBuffer authorStarts;
+
+    private final IntBuffer authorPostings;
+
+    private final IntBuffer titleHeads;
+
+    private final IntBuffer titleNext;
+
+    private final IntBuffer titleHashes;
+
+    /**
+     * Wraps encoded columns, whether just built in direct memory or mapped from a snapshot
+     * file; each column buffer must already carry the byte order it was written in.
+     * {@code authorKeys} holds the {@link AuthorKey} of each CSR group, in group order.
+     */
+    OffHeapCatalogSnapshot(int size, ByteBuffer[] columns, String[] authorDictionary,
+                           YearMonth[] dateDictionary, String[] authorKeys) {
+        super(ratingsOf(size, columns[RATINGS]));
+        this.size = size;
+        this.columns = columns;
+        this.ids = columns[IDS].asLongBuffer();
+        this.views = columns[VIEWS].asLongBuffer();
+        this.likes = columns[LIKES].asIntBuffer();
+        this.authors = columns[AUTHORS].asIntBuffer();
+        this.dates = columns[DATES].asCharBuffer();
+        this.nulls = columns[NULLS];
+        this.offsets = columns[OFFSETS].asIntBuffer();
+        this.arena = columns[ARENA];
+        this.authorStarts = columns[AUTHOR_STARTS].asIntBuffer();
+        this.authorPostings = columns[AUTHOR_POSTINGS].asIntBuffer();
+        this.titleHeads = columns[TITLE_HEADS].asIntBuffer();
+        this.titleNext = columns[TITLE_NEXT].asIntBuffer();
+        this.titleHashes = columns[TITLE_HASHES].asIntBuffer();
+        this.authorDictionary = authorDictionary;
+        this.dateDictionary = dateDictionary;
+        this.authorKeys = authorKeys;
+        this.authorGroups = new HashMap<>(authorKeys.length * 4 / 3 + 1);
+        for (int group = 0; group < authorKeys.length; group++) {
+            authorGroups.put(authorKeys[group], group);
+        }
+    }
+
+    // The ratings column as built or mapped; from then on the current ratings are kept on the heap
+    private static int[] ratingsOf(int size, ByteBuffer column) {
+        int[] ratings = new int[size];
+        column.duplicate().order(column.order()).asIntBuffer().get(ratings);
+        return ratings;
+    }
+
+    // docs must already be in rating order
+    static OffHeapCatalogSnapshot build(Books[] docs) {
+        Builder builder = new Builder(docs.length, textBytes(docs));
+        for (Books book : docs) {
+            builder.add(book);
+        }
+        return builder.build();
+    }
+
+    // Whether columns of these byte lengths can hold a snapshot of the given shape
+    static boolean fits(int rows, int authorGroups, long[] lengths) {
+        long n = rows;
+        long heads = lengths[TITLE_HEADS] / 4;
+        return lengths.length >= COLUMNS
+                && lengths[IDS] == 8 * n && lengths[VIEWS] == 8 * n
+                && lengths[LIKES] == 4 * n && lengths[RATINGS] == 4 * n && lengths[AUTHORS] == 4 * n
+                && lengths[DATES] == 2 * n && lengths[NULLS] == n
+                && lengths[OFFSETS] == 4 * (2 * n + 1)
+                && lengths[AUTHOR_STARTS] == 4L * (authorGroups + 1)
+                && lengths[AUTHOR_POSTINGS] <= 4 * n
+                && heads > 0 && Long.bitCount(heads) == 1
+                && lengths[TITLE_NEXT] == 4 * n && lengths[TITLE_HASHES] == 4 * n;
+    }
+
+    @Override
+    OffHeapCatalogSnapshot columns() {
+        return this;
+    }
+
+    // A read-only view of the column from its start, for writing it out; ratings as they are now
+    ByteBuffer column(int column) {
+        if (column == RATINGS) {
+            ByteBuffer current = ByteBuffer.allocate(4 * size).order(order());
+            for (int doc = 0; doc < size; doc++) {
+                current.putInt(4 * doc, rating(doc));
+            }
+            return current;
+        }
+        ByteBuffer view = columns[column].asReadOnlyBuffer();
+        view.clear();
+        return view;
+    }
+
+    ByteOrder order() {
+        return columns[IDS].order();
+    }
+
+    String[] authorDictionary() {
+        return authorDictionary;
+    }
+
+    YearMonth[] dateDictionary() {
+        return dateDictionary;
+    }
+
+    String[] authorKeys() {
+        return authorKeys;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    Postings authorPostings(String key) {
+        Integer group = authorGroups.get(key);
+        if (group == null) {
+            return null;
+        }
+        int start = authorStarts.get(group);
+        int length = authorStarts.get(group + 1) - start;
+        return new Postings() {
+            @Override
+            public int size() {
+                return length;
+            }
+
+            @Override
+            public int doc(int i) {
+                return authorPostings.get(start + i);
+            }
+        };
+    }
+
+    @Override
+    Postings titlePostings(String key) {
+        int hash = key.hashCode();
+        IntList docs = new IntList();
+        // Chains run in ascending row order, which is rating order
+        for (int doc = titleHeads.get(hash & (titleHeads.capacity() - 1)) - 1; doc >= 0; doc = titleNext.get(doc) - 1) {
+            if (titleHashes.get(doc) == hash && key.equals(normalise(title(doc)))) {
+                docs.add(doc);
+            }
+        }
+        return docs.size() == 0 ? null : postings(docs.toArray());
+    }
+
+    @Override
+    Books copy(int doc) {
+        char date = dates.get(doc);
+        return new Books((nulls.get(doc) & NULL_ID) != 0 ? null : ids.get(doc),
+                title(doc),
+                author(doc),
+                date == NULL_DATE ? null : dateDictionary[date],
+                views.get(doc), likes.get(doc), link(doc), rating(doc));
+    }
+
+    @Override
+    long id(int doc) {
+        return (nulls.get(doc) & NULL_ID) != 0 ? Long.MIN_VALUE : ids.get(doc);
+    }
+
+    @Override
+    public String title(int doc) {
+        return (nulls.get(doc) & NULL_TITLE) != 0 ? null : text(offsets.get(2 * doc), offsets.get(2 * doc + 1));
+    }
+
+    @Override
+    public String author(int doc) {
+        int author = authors.get(doc);
+        return author == NULL_CODE ? null : authorDictionary[author];
+    }
+
+    private String link(int doc) {
+        return (nulls.get(doc) & NULL_LINK) != 0 ? null : text(offsets.get(2 * doc + 1), offsets.get(2 * doc + 2));
+    }
+
+    private String text(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        // Absolute reads through a duplicate, so concurrent readers never share a position
+        ByteBuffer view = arena.duplicate();
+        view.position(from);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes rows, in rating order, into the columns as they arrive, so a rebuild never holds
+     * the catalog as {@code Books}; only the dictionaries end up on the heap. The columns are
+     * allocated for the expected row count and text size, grow by an eighth when more arrives,
+     * and are trimmed to their exact length at the end. Every buffer that is outgrown or
+     * trimmed away is released at once rather than left for a later GC.
+     */
+    static final class Builder {
+
+        // Bytes per row of the per-row columns; OFFSETS, ARENA and the indexes are sized apart
+        private static final int[] WIDTHS = new int[COLUMNS];
+
+        static {
+            WIDTHS[IDS] = 8;
+            WIDTHS[VIEWS] = 8;
+            WIDTHS[LIKES] = 4;
+            WIDTHS[RATINGS] = 4;
+            WIDTHS[AUTHORS] = 4;
+            WIDTHS[DATES] = 2;
+            WIDTHS[NULLS] = 1;
+            WIDTHS[TITLE_NEXT] = 4;
+            WIDTHS[TITLE_HASHES] = 4;
+        }
+
+        private final ByteBuffer[] columns = new ByteBuffer[COLUMNS];
+
+        private final Map<String, Integer> authorCodes = new HashMap<>();
+
+        private final Map<YearMonth, Integer> dateCodes = new HashMap<>();
+
+        private final Map<String, Integer> authorGroups = new HashMap<>();
+
+        private final IntList authorGroupOf = new IntList();
+
+        private int size;
+
+        private int capacity;
+
+        private int arenaEnd;
+
+        Builder(int expectedRows, long expectedTextBytes) {
+            capacity = Math.max(16, expectedRows);
+            for (int column = 0; column < COLUMNS; column++) {
+                if (WIDTHS[column] > 0) {
+                    columns[column] = allocate((long) WIDTHS[column] * capacity);
+                }
+            }
+            columns[OFFSETS] = allocate(4L * (2L * capacity + 1));
+            columns[ARENA] = allocate(Math.max(256, expectedTextBytes));
+        }
+
+        void add(Books book) {
+            add(book.getId(), book.getTitle(), book.getAuthor(), book.getDate(), book.getViews(), book.getLikes(),
+                    book.getLink(), book.getRating());
+        }
+
+        // Rows must arrive in rating order (RATING_THEN_ID), which is the order positions follow
+        void add(Long id, String title, String author, YearMonth date, long views, int likes, String link, int rating) {
+            if (size == capacity) {
+                growRows();
+            }
+            int doc = size;
+            byte flags = 0;
+            if (id == null) {
+                flags |= NULL_ID;
+            } else {
+                columns[IDS].putLong(8 * doc, id);
+            }
+            columns[VIEWS].putLong(8 * doc, views);
+            columns[LIKES].putInt(4 * doc, likes);
+            columns[RATINGS].putInt(4 * doc, rating);
+
+            columns[AUTHORS].putInt(4 * doc, author == null ? NULL_CODE
+                    : authorCodes.computeIfAbsent(author, a -> authorCodes.size()));
+            authorGroupOf.add(author == null ? NULL_CODE
+                    : authorGroups.computeIfAbsent(AuthorKey.of(author), a -> authorGroups.size()));
+
+            int dateCode = date == null ? NULL_DATE : dateCodes.computeIfAbsent(date, d -> dateCodes.size());
+            if (dateCode >= NULL_DATE && date != null) {
+                throw new IllegalStateException("More than " + (int) NULL_DATE + " distinct dates");
+            }
+            columns[DATES].putChar(2 * doc, (char) dateCode);
+
+            columns[OFFSETS].putInt(4 * (2 * doc), arenaEnd);
+            if (title == null) {
+                flags |= NULL_TITLE;
+            } else {
+                appendText(title);
+                columns[TITLE_HASHES].putInt(4 * doc, normalise(title).hashCode());
+            }
+            columns[OFFSETS].putInt(4 * (2 * doc + 1), arenaEnd);
+            if (link == null) {
+                flags |= NULL_LINK;
+            } else {
+                appendText(link);
+            }
+            columns[NULLS].put(doc, flags);
+            size++;
+        }
+
+        OffHeapCatalogSnapshot build() {
+            columns[OFFSETS].putInt(4 * (2 * size), arenaEnd);
+            for (int column = 0; column < COLUMNS; column++) {
+                if (WIDTHS[column] > 0) {
+                    trim(column, (long) WIDTHS[column] * size);
+                }
+            }
+            trim(OFFSETS, 4L * (2L * size + 1));
+            trim(ARENA, arenaEnd);
+
+            String[] authorDictionary = new String[authorCodes.size()];
+            authorCodes.forEach((author, code) -> authorDictionary[code] = author);
+            YearMonth[] dateDictionary = new YearMonth[dateCodes.size()];
+            dateCodes.forEach((date, code) -> dateDictionary[code] = date);
+            String[] authorKeys = new String[authorGroups.size()];
+            authorGroups.forEach((key, group) -> authorKeys[group] = key);
+
+            // CSR: count rows per author, turn counts into run starts, then fill in row order
+            int groups = authorGroups.size();
+            IntBuffer authorStarts = (columns[AUTHOR_STARTS] = allocate(4L * (groups + 1))).asIntBuffer();
+            for (int doc = 0; doc < size; doc++) {
+                int group = authorGroupOf.get(doc);
+                if (group != NULL_CODE) {
+                    authorStarts.put(group + 1, authorStarts.get(group + 1) + 1);
+                }
+            }
+            for (int group = 0; group < groups; group++) {
+                authorStarts.put(group + 1, authorStarts.get(group + 1) + authorStarts.get(group));
+            }
+            IntBuffer authorPostings = (columns[AUTHOR_POSTINGS] = allocate(4L * authorStarts.get(groups))).asIntBuffer();
+            int[] fill = new int[groups];
+            for (int doc = 0; doc < size; doc++) {
+                int group = authorGroupOf.get(doc);
+                if (group != NULL_CODE) {
+                    authorPostings.put(authorStarts.get(group) + fill[group]++, doc);
+                }
+            }
+
+            // Head insertion from the last row keeps every chain in ascending row order
+            IntBuffer titleHeads = (columns[TITLE_HEADS] = allocate(4L * tableSize(size))).asIntBuffer();
+            IntBuffer titleNext = columns[TITLE_NEXT].asIntBuffer();
+            IntBuffer titleHashes = columns[TITLE_HASHES].asIntBuffer();
+            int mask = titleHeads.capacity() - 1;
+            for (int doc = size - 1; doc >= 0; doc--) {
+                if ((columns[NULLS].get(doc) & NULL_TITLE) != 0) {
+                    continue;
+                }
+                int hash = titleHashes.get(doc);
+                titleNext.put(doc, titleHeads.get(hash & mask));
+                titleHeads.put(hash & mask, doc + 1);
+            }
+            return new OffHeapCatalogSnapshot(size, columns, authorDictionary, dateDictionary, authorKeys);
+        }
+
+        // Frees the columns of a build that will not be completed
+        void release() {
+            for (int column = 0; column < COLUMNS; column++) {
+                OffHeapCatalogSnapshot.release(columns[column]);
+                columns[column] = null;
+            }
+        }
+
+        private void appendText(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer arena = columns[ARENA];
+            if (arena.capacity() - arenaEnd < bytes.length) {
+                arena = grow(ARENA, arenaEnd, (long) arenaEnd + bytes.length);
+            }
+            arena.position(arenaEnd);
+            arena.put(bytes);
+            arenaEnd = arena.position();
+        }
+
+        private void growRows() {
+            int grown = (int) Math.min(Integer.MAX_VALUE - 1, (long) capacity + Math.max(16, capacity / 8));
+            for (int column = 0; column < COLUMNS; column++) {
+                if (WIDTHS[column] > 0) {
+                    grow(column, WIDTHS[column] * size, (long) WIDTHS[column] * grown);
+                }
+            }
+            grow(OFFSETS, 4 * (2 * size), 4L * (2L * grown + 1));
+            capacity = grown;
+        }
+
+        // Moves the first used bytes of the column into a larger buffer and frees the old one
+        private ByteBuffer grow(int column, int used, long needed) {
+            ByteBuffer old = columns[column];
+            ByteBuffer grown = allocate(Math.max(needed, (long) old.capacity() + old.capacity() / 8));
+            copy(old, used, grown);
+            columns[column] = grown;
+            OffHeapCatalogSnapshot.release(old);
+            return grown;
+        }
+
+        // Keeps a slice when little would be gained, else moves the column into an exact buffer
+        private void trim(int column, long bytes) {
+            ByteBuffer buffer = columns[column];
+            if (bytes >= buffer.capacity() - buffer.capacity() / 4) {
+                buffer.clear();
+                buffer.limit((int) bytes);
+                columns[column] = buffer.slice().order(buffer.order());
+            } else {
+                ByteBuffer exact = allocate(bytes);
+                copy(buffer, (int) bytes, exact);
+                columns[column] = exact;
+                OffHeapCatalogSnapshot.release(buffer);
+            }
+        }
+
+        private static void copy(ByteBuffer from, int bytes, ByteBuffer to) {
+            ByteBuffer source = from.duplicate();
+            source.clear();
+            source.limit(bytes);
+            to.clear();
+            to.put(source);
+            to.clear();
+        }
+
+        // Power of two with at least two slots per row
+        private static int tableSize(int rows) {
+            return Integer.highestOneBit(Math.max(1, rows) * 2 - 1) << 1;
+        }
+
+        private static ByteBuffer allocate(long bytes) {
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Catalog column of " + bytes + " bytes exceeds a single direct buffer");
+            }
+            return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    static long textBytes(Books[] docs) {
+        long bytes = 0;
+        for (Books book : docs) {
+            bytes += utf8Length(book.getTitle()) + utf8Length(book.getLink());
+        }
+        return bytes;
+    }
+
+    private static long utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    // Frees a direct buffer now instead of whenever the GC finds it; left to the GC where that is not possible
+    static void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            // A view of another buffer, which is freed along with that one
+        }
+    }
+
+    private static Object findUnsafe() {
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Method findInvokeCleaner() {
+        try {
+            return UNSAFE == null ? null : UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.Service;
+
+import com.example.demo.Component.CatalogChangedEvent;
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.Books;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the author and exact title lookups that go to the database. Entries
+ * are bounded by total row count (Caffeine's W-TinyLFU eviction), expire after a
+ * per-lookup-type TTL and are dropped whenever the catalog is reloaded.
+ *
+ * It only fronts the database path: while a {@code CatalogSnapshot} is served, lookups never
+ * reach it. That leaves {@code catalog.snapshot.enabled=false} and the window before the first
+ * snapshot is built.
+ *
+ * Entries hold unmodifiable copies of the loaded books and every hit returns fresh copies, so
+ * the rating increment applied to a result never reaches the cache or another request. A hit
+ * shows ratings as of its load, at most one TTL old. Statistics are published as the
+ * {@code catalog.lookup} cache metrics.
+ */
+@Component
+public class BookLookupCache implements MeterBinder {
+
+    static final String AUTHOR = "author";
+
+    static final String TITLE = "title";
+
+    private final Cache<LookupKey, List<Books>> cache;
+
+    public BookLookupCache(@Value("${catalog.cache.enabled:true}") boolean enabled,
+                           @Value("${catalog.cache.max-weight:100000}") long maxWeight,
+                           @Value("${catalog.cache.author-ttl:10m}") Duration authorTtl,
+                           @Value("${catalog.cache.title-ttl:5m}") Duration titleTtl) {
+        this.cache = enabled ? Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((LookupKey key, List<Books> books) -> books.size() + 1)
+                .expireAfter(new PerKindExpiry(authorTtl.toNanos(), titleTtl.toNanos()))
+                .recordStats()
+                .build() : null;
+    }
+
+    public List<Books> get(String kind, String value, Pageable pageable, BookCursor after, Supplier<List<Books>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        LookupKey key = new LookupKey(kind, value, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort(), after);
+        return copies(cache.get(key, k -> Collections.unmodifiableList(copies(loader.get()))));
+    }
+
+    private static List<Books> copies(List<Books> books) {
+        List<Books> copies = new ArrayList<>(books.size());
+        for (Books book : books) {
+            copies.add(new Books(book.getId(), book.getTitle(), book.getAuthor(), book.getDate(),
+                    book.getViews(), book.getLikes(), book.getLink(), book.getRating()));
+        }
+        return copies;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, "catalog.lookup");
+        }
+    }
+
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    private static final class PerKindExpiry implements Expiry<LookupKey, List<Books>> {
+
+        private final long authorTtlNanos;
+
+        private final long titleTtlNanos;
+
+        PerKindExpiry(long authorTtlNanos, long titleTtlNanos) {
+            this.authorTtlNanos = authorTtlNanos;
+            this.titleTtlNanos = titleTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(LookupKey key, List<Books> value, long currentTime) {
+            return AUTHOR.equals(key.kind) ? authorTtlNanos : titleTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(LookupKey key, List<Books> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(LookupKey key, List<Books> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static final class LookupKey {
+
+        private final String kind;
+
+        private final String value;
+
+        private final int page;
+
+        private final int size;
+
+        private final Sort sort;
+
+        private final BookCursor after;
+
+        LookupKey(String kind, String value, int page, int size, Sort sort, BookCursor after) {
+            this.kind = kind;
+            this.value = value;
+            this.page = page;
+            this.size = size;
+            this.sort = sort;
+            this.after = after;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LookupKey that = (LookupKey) o;
+            return page == that.page && size == that.size && kind.equals(that.kind)
+                    && Objects.equals(value, that.value) && Objects.equals(sort, that.sort) && Objects.equals(after, that.after);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, value, page, size, sort, after);
+        }
+    }
+}
@@ -3,15 +3,18 @@ package com.example.demo.Service;
 import com.example.demo.Model.Books;
 import com.example.demo.Repository.BookRepository;
 import com.example.demo.Repository.BookRepositoryCustom;
-import com.opencsv.CSVReader;
+import com.example.demo.Repository.CatalogSnapshotStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
-import java.io.FileReader;
+import java.io.IOException;
 import java.util.List;
 
 
@@ -19,35 +22,59 @@ import java.util.List;
 @Component
 public class BookService implements ApplicationRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(BookService.class);
+
     private BookServiceInterface bookServiceInterface;
 
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private CatalogImporter catalogImporter;
+
+    @Autowired
+    private CatalogImportProgress importProgress;
+
+    @Autowired
+    private CatalogSnapshotStore catalogSnapshotStore;
+
+    @Value("${catalog.import.on-startup:true}")
+    private boolean importOnStartup;
+
+    @Value("${catalog.import.background:true}")
+    private boolean importInBackground;
+
     @Override
     public void run(ApplicationArguments args) throws Exception{
-
-        //Load CSV file
-        ClassPathResource resource = new ClassPathResource("data.csv");
-        CSVReader csvReader = new CSVReader(new FileReader(resource.getFile()));
-
-        //Parse CSV data
-        List<String[]> data = csvReader.readAll();
-
-        for (String[] row : data) {
-            Books books = new Books();
-            books.setTitle(row[0]);
-            books.setAuthor(row[1]);
-            books.setDate(row[2]);
-            books.setViews(row[3]);
-            books.setLikes(row[4]);
-            books.setLink(row[5]);
-            if (row[6] != null && !row[6].isEmpty() && row[6].matches("\\d+")) {
-                books.setRating(Integer.parseInt(row[6]));
+        if (!importOnStartup) {
+            // No import will announce the catalog, so load it once unless a snapshot file already did
+            if (catalogSnapshotStore.loaded() == null) {
+                catalogSnapshotStore.rebuild();
             }
-            bookRepository.save(books);
+            return;
+        }
+
+        if (!importInBackground) {
+            importCatalog();
+            return;
         }
-        csvReader.close();
+        // Startup finishes right away; readiness waits on importProgress instead, which must not
+        // read as idle (ready) before the thread gets going
+        importProgress.start();
+        Thread importer = new Thread(() -> {
+            try {
+                importCatalog();
+            } catch (Exception e) {
+                log.error("Background catalog import failed", e);
+            }
+        }, "catalog-import");
+        importer.setDaemon(true);
+        importer.start();
+    }
+
+    private void importCatalog() throws IOException {
+        //Apply only the rows of data.csv that changed since the last import
+        catalogImporter.importIfChanged("data.csv", new ClassPathResource("data.csv"), importProgress);
     }
 
     public List<Books> getBookByAuthor(String author) {
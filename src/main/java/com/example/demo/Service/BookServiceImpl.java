@@ -1,40 +1,74 @@
 package com.example.demo.Service;
 
+import com.example.demo.Model.AuthorKey;
+import com.example.demo.Model.BookCursor;
 import com.example.demo.Model.Books;
+import com.example.demo.Repository.Bm25SearchIndex;
 import com.example.demo.Repository.BookRepository;
 import com.example.demo.Repository.BookRepositoryCustom;
+import com.example.demo.Repository.CatalogSnapshot;
+import com.example.demo.Repository.CatalogSnapshotStore;
+import com.example.demo.Repository.FuzzyTitleIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Qualifier;
 
 @Service
 @Component
 public class BookServiceImpl implements BookServiceInterface  {
 
+    // Rating order with the id as tie-breaker, so offset and keyset pages are stable
+    private static final Sort RATING_ORDER = Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    // Largest IN list sent in one statement; longer batches are split
+    static final int IN_CHUNK_SIZE = 500;
+
     private BookRepository bookRepository;
 
     private BookRepositoryCustom bookRepositoryCustom;
 
-    public BookServiceImpl(@Qualifier("repositoryA")BookRepository bookRepository, @Qualifier("repositoryB")BookRepositoryCustom bookRepositoryCustom) {
+    private RatingCounter ratingCounter;
+
+    private BookLookupCache bookLookupCache;
+
+    private Bm25SearchIndex searchIndex;
+
+    private FuzzyTitleIndex fuzzyTitleIndex;
+
+    private CatalogSnapshotStore catalogSnapshotStore;
+
+    public BookServiceImpl(@Qualifier("repositoryA")BookRepository bookRepository, @Qualifier("repositoryB")BookRepositoryCustom bookRepositoryCustom, RatingCounter ratingCounter, BookLookupCache bookLookupCache, Bm25SearchIndex searchIndex, FuzzyTitleIndex fuzzyTitleIndex, CatalogSnapshotStore catalogSnapshotStore) {
         this.bookRepository = bookRepository;
         this.bookRepositoryCustom = bookRepositoryCustom;
+        this.ratingCounter = ratingCounter;
+        this.bookLookupCache = bookLookupCache;
+        this.searchIndex = searchIndex;
+        this.fuzzyTitleIndex = fuzzyTitleIndex;
+        this.catalogSnapshotStore = catalogSnapshotStore;
     }
     public void incrementRating(Books book) {
         int currentRating = book.getRating();
         book.setRating(currentRating + 1);
-        bookRepository.save(book); // Save the updated book to the database
+        ratingCounter.increment(book.getId()); // Buffered and written to the database in batches
     }
 
     //call method for finding author
     public List<Books> getBookByAuthor(String author) {
         // Sort by rating in descending order
         Sort sort = Sort.by(Sort.Direction.DESC,"rating");
-        List<Books> booksList = bookRepository.findByAuthor(author, sort);
+        CatalogSnapshot snapshot = catalogSnapshotStore.current();
+        List<Books> booksList = snapshot != null ? snapshot.byAuthor(author) : bookRepository.findByAuthorKey(AuthorKey.of(author), sort);
 
         for (Books book : booksList) {
             incrementRating(book); // call method to increment rating
@@ -45,7 +79,8 @@ public class BookServiceImpl implements BookServiceInterface  {
 
     public List<Books> getBookByExactTitle(String title) {
         Sort sort = Sort.by(Sort.Direction.DESC,"rating");
-        List<Books> exactMatch = bookRepository.findByExactTitleMatch(title, sort);
+        CatalogSnapshot snapshot = catalogSnapshotStore.current();
+        List<Books> exactMatch = snapshot != null ? snapshot.byTitle(title) : bookRepository.findByExactTitleMatch(title, sort);
 
         for (Books book : exactMatch) {
             incrementRating(book); // call method to increment rating
@@ -55,7 +90,7 @@ public class BookServiceImpl implements BookServiceInterface  {
 
     public List<Books> getBookByKeyword(String title) {
 
-        List<String> keywords = Arrays.asList(title.split(" "));
+        List<String> keywords = keywordsOf(title);
         Sort sort = Sort.by(Sort.Direction.DESC,"rating");
         List<Books> booksList = bookRepositoryCustom.findByKeywords(keywords, sort);
 
@@ -65,4 +100,177 @@ public class BookServiceImpl implements BookServiceInterface  {
 
         return booksList;
     }
+
+    public List<Books> getBookByAuthor(String author, Pageable pageable, BookCursor after) {
+        // The in-memory snapshot answers without the database; the cache only fronts the database path
+        CatalogSnapshot snapshot = catalogSnapshotStore.current();
+        // Spellings of the same author share one cache entry
+        String authorKey = AuthorKey.of(author);
+        List<Books> booksList = snapshot != null ? snapshot.byAuthor(author, pageable, after) : bookLookupCache.get(BookLookupCache.AUTHOR, authorKey, pageable, after, () -> after == null
+                ? bookRepository.findByAuthorKey(authorKey, ordered(pageable))
+                : bookRepository.findByAuthorKeyAfter(authorKey, after.getRating(), after.getId(), PageRequest.of(0, pageable.getPageSize())));
+
+        for (Books book : booksList) {
+            incrementRating(book); // call method to increment rating
+        }
+
+        return booksList;
+    }
+
+    public List<Books> getBookByExactTitle(String title, Pageable pageable, BookCursor after) {
+        CatalogSnapshot snapshot = catalogSnapshotStore.current();
+        List<Books> exactMatch = snapshot != null ? snapshot.byTitle(title, pageable, after) : bookLookupCache.get(BookLookupCache.TITLE, title, pageable, after, () -> after == null
+                ? bookRepository.findByExactTitleMatch(title, ordered(pageable))
+                : bookRepository.findByExactTitleMatchAfter(title, after.getRating(), after.getId(), PageRequest.of(0, pageable.getPageSize())));
+
+        for (Books book : exactMatch) {
+            incrementRating(book); // call method to increment rating
+        }
+        return exactMatch;
+    }
+
+    public List<Books> getBookByKeyword(String title, Pageable pageable, BookCursor after) {
+        List<String> keywords = keywordsOf(title);
+        List<Books> booksList;
+        if (after == null && byRelevance(pageable)) {
+            booksList = searchIndex.search(keywords, pageable.getOffset(), pageable.getPageSize());
+        } else {
+            booksList = after == null
+                    ? bookRepositoryCustom.findByKeywords(keywords, ordered(pageable))
+                    : bookRepositoryCustom.findByKeywordsAfter(keywords, after, pageable.getPageSize());
+        }
+
+        for (Books book : booksList) {
+            incrementRating(book); // call method to increment rating
+        }
+
+        return booksList;
+    }
+
+    public List<Books> searchByTitle(String title, Pageable pageable, BookCursor after) {
+        List<String> keywords = keywordsOf(title);
+        List<Books> booksList;
+        if (after == null && byRelevance(pageable)) {
+            booksList = searchIndex.searchByTitleOrKeywords(title, keywords, pageable.getOffset(), pageable.getPageSize());
+        } else {
+            booksList = after == null
+                    ? bookRepositoryCustom.findByTitleOrKeywords(title, keywords, ordered(pageable))
+                    : bookRepositoryCustom.findByTitleOrKeywordsAfter(title, keywords, after, pageable.getPageSize());
+        }
+
+        for (Books book : booksList) {
+            incrementRating(book); // call method to increment rating
+        }
+
+        return booksList;
+    }
+
+    public List<Books> getBookByFuzzyTitle(String title, Pageable pageable) {
+        List<Books> booksList = fuzzyTitleIndex.search(title, pageable.getOffset(), pageable.getPageSize());
+
+        for (Books book : booksList) {
+            incrementRating(book); // call method to increment rating
+        }
+
+        return booksList;
+    }
+
+    // The transaction keeps the connection, and with it the streaming result set, open until the last row is written
+    @Transactional(readOnly = true)
+    public void streamBookByAuthor(String author, Sort sort, Consumer<Books> sink) {
+        try (Stream<Books> books = bookRepository.streamByAuthor(author, sort)) {
+            books.forEach(book -> {
+                incrementRating(book); // call method to increment rating
+                sink.accept(book);
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamByTitle(String title, Sort sort, Consumer<Books> sink) {
+        try (Stream<Books> books = bookRepositoryCustom.streamByTitleOrKeywords(title, keywordsOf(title), sort)) {
+            books.forEach(book -> {
+                incrementRating(book); // call method to increment rating
+                sink.accept(book);
+            });
+        }
+    }
+
+    public Map<String, List<Books>> getBooksByAuthors(List<String> authors, int limit) {
+        CatalogSnapshot snapshot = catalogSnapshotStore.current();
+        return lookupAll(authors, limit, AuthorKey::of, snapshot != null
+                ? keys -> fromSnapshot(keys, key -> snapshot.byAuthor(key, PageRequest.of(0, limit), null))
+                : keys -> bookRepository.findByAuthorKeyIn(keys.stream().map(AuthorKey::of).collect(Collectors.toList())),
+                Books::getAuthor);
+    }
+
+    public Map<String, List<Books>> getBooksByExactTitles(List<String> titles, int limit) {
+        CatalogSnapshot snapshot = catalogSnapshotStore.current();
+        return lookupAll(titles, limit, title -> title.toLowerCase(Locale.ROOT), snapshot != null
+                ? keys -> fromSnapshot(keys, key -> snapshot.byTitle(key, PageRequest.of(0, limit), null))
+                : bookRepository::findByExactTitleIn, Books::getTitle);
+    }
+
+    private static List<Books> fromSnapshot(Collection<String> keys, Function<String, List<Books>> lookup) {
+        List<Books> rows = new ArrayList<>();
+        for (String key : keys) {
+            rows.addAll(lookup.apply(key));
+        }
+        return rows;
+    }
+
+    // Resolves the keys chunk by chunk and groups the rows by key, keeping the request order. Keys and
+    // rows are grouped by the normal form the lookup matches on; each form is queried once, as first spelled.
+    private Map<String, List<Books>> lookupAll(List<String> keys, int limit,
+                                               Function<String, String> normalise,
+                                               Function<Collection<String>, List<Books>> query,
+                                               Function<Books, String> keyOf) {
+        Map<String, String> distinct = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (key != null) {
+                distinct.putIfAbsent(normalise.apply(key), key);
+            }
+        }
+        Map<String, List<Books>> found = new HashMap<>();
+        List<String> pending = new ArrayList<>(distinct.values());
+        for (int from = 0; from < pending.size(); from += IN_CHUNK_SIZE) {
+            for (Books book : query.apply(pending.subList(from, Math.min(pending.size(), from + IN_CHUNK_SIZE)))) {
+                List<Books> group = found.computeIfAbsent(normalise.apply(keyOf.apply(book)), key -> new ArrayList<>());
+                if (group.size() < limit) {
+                    group.add(book);
+                }
+            }
+        }
+
+        Map<String, List<Books>> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (key == null || result.containsKey(key)) {
+                continue;
+            }
+            List<Books> booksList = found.getOrDefault(normalise.apply(key), Collections.emptyList());
+            for (Books book : booksList) {
+                incrementRating(book); // call method to increment rating
+            }
+            result.put(key, booksList);
+        }
+        return result;
+    }
+
+    // Splits the search text into the keywords passed to the repository
+    public static List<String> keywordsOf(String title) {
+        return Arrays.asList(title.split(" "));
+    }
+
+    // sort=relevance is served by the BM25 index rather than the keyword repository
+    private static boolean byRelevance(Pageable pageable) {
+        return pageable.getSort().getOrderFor("relevance") != null;
+    }
+
+    // Keeps a sort chosen by the caller, otherwise orders by rating
+    private static Pageable ordered(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), RATING_ORDER);
+    }
 }
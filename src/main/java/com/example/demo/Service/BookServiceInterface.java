@@ -1,8 +1,13 @@
 package com.example.demo.Service;
 
+import com.example.demo.Model.BookCursor;
 import com.example.demo.Model.Books;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BookServiceInterface {
 
@@ -10,4 +15,24 @@ public interface BookServiceInterface {
     List<Books> getBookByExactTitle(String title);
 
     List<Books> getBookByKeyword(String title);
+
+    // Bounded variants: one page in rating order, or the rows after a keyset cursor when one is given
+    List<Books> getBookByAuthor(String author, Pageable pageable, BookCursor after);
+    List<Books> getBookByExactTitle(String title, Pageable pageable, BookCursor after);
+
+    List<Books> getBookByKeyword(String title, Pageable pageable, BookCursor after);
+
+    // Exact title and keyword matches in one query, exact matches first, each book once
+    List<Books> searchByTitle(String title, Pageable pageable, BookCursor after);
+
+    // Typo-tolerant title search, ranked by how many words match and how closely
+    List<Books> getBookByFuzzyTitle(String title, Pageable pageable);
+
+    // Batch lookups: every author or exact title in a few IN queries, at most limit books each in rating order
+    Map<String, List<Books>> getBooksByAuthors(List<String> authors, int limit);
+    Map<String, List<Books>> getBooksByExactTitles(List<String> titles, int limit);
+
+    // Streaming variants: every match in the given order, handed to the sink as each row is read
+    void streamBookByAuthor(String author, Sort sort, Consumer<Books> sink);
+    void streamByTitle(String title, Sort sort, Consumer<Books> sink);
 }
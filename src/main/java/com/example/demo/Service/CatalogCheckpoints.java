@@ -0,0 +1,40 @@
+package com.example.demo.Service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Checksum of the last completed import per source file, kept in {@code catalog_import_checkpoint}.
+ */
+@Component
+public class CatalogCheckpoints {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogCheckpoints(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<String> checksumFor(String source) {
+        List<String> checksums = jdbcTemplate.queryForList(
+                "SELECT checksum FROM catalog_import_checkpoint WHERE source = ?", String.class, source);
+        return checksums.isEmpty() ? Optional.empty() : Optional.of(checksums.get(0));
+    }
+
+    public void record(String source, String checksum, long rows) {
+        Timestamp now = Timestamp.from(Instant.now());
+        int updated = jdbcTemplate.update(
+                "UPDATE catalog_import_checkpoint SET checksum = ?, rows_read = ?, completed_at = ? WHERE source = ?",
+                checksum, rows, now, source);
+        if (updated == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO catalog_import_checkpoint (source, checksum, rows_read, completed_at) VALUES (?, ?, ?, ?)",
+                    source, checksum, rows, now);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashes used by the incremental import: a stable key per book (title + author), a content
+ * hash per CSV row and a checksum of the whole source file.
+ */
+final class CatalogFingerprint {
+
+    private static final char SEPARATOR = '\u001f';
+
+    // Catalog columns covered by the row hash; the rating column is owned by the database
+    private static final int HASHED_COLUMNS = 6;
+
+    private CatalogFingerprint() {
+    }
+
+    // Must stay in line with the backfill in V2__catalog_import_checkpoints.sql
+    static String rowKey(String title, String author) {
+        String key = normalise(title) + SEPARATOR + normalise(author);
+        return hex(digest("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static long rowHash(String[] row) {
+        MessageDigest digest = digest("SHA-256");
+        for (int i = 0; i < HASHED_COLUMNS; i++) {
+            if (i < row.length && row[i] != null) {
+                digest.update(row[i].getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) SEPARATOR);
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    static String checksum(InputStream in) throws IOException {
+        return checksum(in, lines -> { });
+    }
+
+    // Also reports the number of lines, an estimate of the rows that costs nothing extra to read
+    static String checksum(InputStream in, LongConsumer lineCount) throws IOException {
+        MessageDigest digest = digest("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        long lines = 0;
+        byte last = '\n';
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+            if (read > 0) {
+                last = buffer[read - 1];
+            }
+        }
+        lineCount.accept(last == '\n' ? lines : lines + 1);
+        return hex(digest.digest());
+    }
+
+    // Matches MySQL's LOWER(TRIM(COALESCE(value, ''))): only spaces are trimmed
+    private static String normalise(String value) {
+        if (value == null) {
+            return "";
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return value.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress of the startup import, read by the readiness health check and {@code /admin/import}.
+ * The total is the line count of the source, taken in the same pass as its checksum, so it is
+ * an upper bound when quoted fields span lines. The import counts as ready once it completes
+ * and the catalog it wrote has been loaded. With {@code catalog.import.ready-fraction} below 1
+ * it is ready earlier: once that fraction of the total has been written, the importer loads
+ * the rows written so far into the in-memory catalog and its indexes, and from then on
+ * searches are served from them until the import completes.
+ */
+@Component
+public class CatalogImportProgress {
+
+    public enum State { IDLE, RUNNING, COMPLETE, FAILED }
+
+    private final double readyFraction;
+
+    private volatile State state = State.IDLE;
+
+    private volatile long rows;
+
+    private volatile long totalRows = -1;
+
+    private volatile long startNanos;
+
+    private volatile long endNanos;
+
+    private volatile String error;
+
+    private volatile boolean partialLoaded;
+
+    public CatalogImportProgress(@Value("${catalog.import.ready-fraction:1.0}") double readyFraction) {
+        this.readyFraction = Math.min(1.0, Math.max(0.0, readyFraction));
+    }
+
+    void start() {
+        rows = 0;
+        totalRows = -1;
+        error = null;
+        partialLoaded = false;
+        startNanos = System.nanoTime();
+        state = State.RUNNING;
+    }
+
+    void total(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    void advance(long rows) {
+        this.rows = rows;
+    }
+
+    void complete(long rows) {
+        this.rows = rows;
+        endNanos = System.nanoTime();
+        state = State.COMPLETE;
+    }
+
+    // Enough has been written to serve from before the import completes
+    boolean pastReadyFraction() {
+        long total = totalRows;
+        return readyFraction < 1.0 && total > 0 && rows >= readyFraction * total;
+    }
+
+    // The rows written so far are now what searches are served from
+    void partialLoaded() {
+        partialLoaded = true;
+    }
+
+    void fail(Throwable cause) {
+        error = cause.toString();
+        endNanos = System.nanoTime();
+        state = State.FAILED;
+    }
+
+    // No import configured counts as ready; a failed one does not
+    public boolean isReady() {
+        switch (state) {
+            case IDLE:
+            case COMPLETE:
+                return true;
+            case RUNNING:
+                return partialLoaded;
+            default:
+                return false;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    // -1 until the source has been scanned
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public long getElapsedMillis() {
+        if (state == State.IDLE) {
+            return 0;
+        }
+        long end = state == State.RUNNING ? System.nanoTime() : endNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    public long getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed <= 0 ? rows : rows * 1000 / elapsed;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.demo.Service;
+
+import com.example.demo.Component.CatalogChangedEvent;
+import com.example.demo.Model.AuthorKey;
+import com.example.demo.Model.Books;
+import com.example.demo.Model.CatalogValues;
+import com.example.demo.Model.YearMonthConverter;
+import com.opencsv.CSVReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Streams catalog rows into the database in batches. Rows are persisted in chunks of
+ * {@code clearSize}, each chunk in its own transaction, and the persistence context is
+ * flushed every {@code flushSize} rows so Hibernate can group the INSERTs into JDBC batches.
+ *
+ * {@link #importIfChanged} is the startup path: it skips a source whose checksum matches the
+ * last checkpoint, and otherwise upserts by row key, so unchanged rows cost nothing and
+ * ratings accumulated in the database are kept.
+ */
+@Component
+public class CatalogImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImporter.class);
+
+    // Catalog columns only: rating belongs to the database once a book exists
+    static final String UPDATE_SQL = "UPDATE books SET title = ?, author = ?, date = ?, views = ?, likes = ?, link = ?, author_key = ?, row_hash = ?, rating = COALESCE(?, rating) WHERE id = ?";
+
+    private static final YearMonthConverter MONTHS = new YearMonthConverter();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CatalogCheckpoints checkpoints;
+
+    private final ParallelCsvParser csvParser;
+
+    private final int flushSize;
+
+    private final int clearSize;
+
+    public CatalogImporter(PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           JdbcTemplate jdbcTemplate,
+                           CatalogCheckpoints checkpoints,
+                           ParallelCsvParser csvParser,
+                           @Value("${catalog.import.flush-size:50}") int flushSize,
+                           @Value("${catalog.import.clear-size:1000}") int clearSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpoints = checkpoints;
+        this.csvParser = csvParser;
+        this.flushSize = Math.max(1, flushSize);
+        this.clearSize = Math.max(this.flushSize, clearSize);
+    }
+
+    public ImportStats importIfChanged(String source, Resource resource) throws IOException {
+        return importIfChanged(source, resource, new CatalogImportProgress(1.0));
+    }
+
+    /**
+     * As {@link #importIfChanged(String, Resource)}, reporting the rows done to {@code progress}
+     * every {@code clearSize} rows. A failure is recorded there as well as thrown.
+     */
+    public ImportStats importIfChanged(String source, Resource resource, CatalogImportProgress progress) throws IOException {
+        progress.start();
+        try {
+            String checksum;
+            try (InputStream in = resource.getInputStream()) {
+                checksum = CatalogFingerprint.checksum(in, progress::total);
+            }
+            Optional<String> previous = checkpoints.checksumFor(source);
+            if (previous.isPresent() && previous.get().equals(checksum)) {
+                log.info("Catalog source {} is unchanged since the last import, skipping it", source);
+                // In-memory search structures are still built from the existing rows, before readiness
+                eventPublisher.publishEvent(new CatalogChangedEvent(this, 0, checksum));
+                progress.complete(0);
+                return new ImportStats(0, 0, 0, 0, 0);
+            }
+
+            ImportStats stats;
+            try (CatalogRows catalogRows = csvParser.open(resource)) {
+                stats = importChanges(catalogRows, checksum, progress);
+            }
+            checkpoints.record(source, checksum, stats.getRows());
+            progress.complete(stats.getRows());
+            return stats;
+        } catch (IOException | RuntimeException e) {
+            progress.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Upserts rows by title+author: new books are inserted, books whose catalog columns changed
+     * are updated in JDBC batches, and the rest are skipped. The known keys are held in memory
+     * for the duration of the import; a book it inserts is held as an entity only until its
+     * chunk is written, and by id from then on.
+     *
+     * When a key repeats in the file, the row that comes last in the file wins, whatever order
+     * the rows arrive in: each key remembers the position of the row applied for it, and rows
+     * from earlier in the file are skipped. Ratings of books already in the table are left to
+     * the rating counter; a book first inserted by this import takes the winning row's rating.
+     */
+    public ImportStats importChanges(CatalogRows catalogRows) throws IOException {
+        return importChanges(catalogRows, null, new CatalogImportProgress(1.0));
+    }
+
+    private ImportStats importChanges(CatalogRows catalogRows, String checksum, CatalogImportProgress progress) throws IOException {
+        long start = System.nanoTime();
+        Map<String, KnownRow> knownRows = loadKnownRows();
+        long rows = 0;
+        long inserted = 0;
+        long updated = 0;
+        List<Books> inserts = new ArrayList<>();
+        List<KnownRow> pending = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        boolean partialLoaded = false;
+
+        String[] row;
+        while ((row = catalogRows.next()) != null) {
+            rows++;
+            long position = catalogRows.position() < 0 ? rows : catalogRows.position();
+            Books book = toBook(row);
+            String key = CatalogFingerprint.rowKey(book.getTitle(), book.getAuthor());
+            long hash = CatalogFingerprint.rowHash(row);
+            KnownRow known = knownRows.get(key);
+            if (known == null) {
+                book.setRowKey(key);
+                book.setRowHash(hash);
+                inserts.add(book);
+                KnownRow created = new KnownRow(book, position);
+                pending.add(created);
+                knownRows.put(key, created);
+                inserted++;
+            } else if (position > known.position) {
+                // Otherwise a row from further down the file has already been applied for this key
+                known.position = position;
+                if (known.hash == null || known.hash != hash) {
+                    if (known.pending != null) {
+                        // Repeated in the file before its insert was written
+                        copyCatalogColumns(book, known.pending);
+                        known.pending.setRating(book.getRating());
+                        known.pending.setRowHash(hash);
+                    } else {
+                        Integer rating = known.inserted ? Integer.valueOf(book.getRating()) : null;
+                        updates.add(updateArgs(book, hash, rating, known.id));
+                    }
+                    known.hash = hash;
+                    updated++;
+                }
+            }
+            if (inserts.size() + updates.size() >= clearSize) {
+                writeChunk(inserts, updates);
+                written(pending);
+                inserts = new ArrayList<>();
+                updates = new ArrayList<>();
+            }
+            if (rows % clearSize == 0) {
+                // Unchanged rows count as done; rows still waiting for their chunk do not
+                progress.advance(rows - inserts.size() - updates.size());
+                if (!partialLoaded && progress.pastReadyFraction()) {
+                    // Serve what is written so far; the event at the end loads the rest
+                    eventPublisher.publishEvent(new CatalogChangedEvent(this, progress.getRows()));
+                    progress.partialLoaded();
+                    partialLoaded = true;
+                }
+            }
+        }
+        if (!inserts.isEmpty() || !updates.isEmpty()) {
+            writeChunk(inserts, updates);
+            written(pending);
+        }
+
+        ImportStats stats = new ImportStats(rows, inserted, updated, rows - inserted - updated, System.nanoTime() - start);
+        log.info("Incremental catalog import finished: {}", stats);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, inserted + updated, checksum));
+        return stats;
+    }
+
+    public ImportStats importChanges(CSVReader csvReader) throws IOException {
+        return importChanges((CatalogRows) csvReader::readNext);
+    }
+
+    private Map<String, KnownRow> loadKnownRows() {
+        Map<String, KnownRow> knownRows = new HashMap<>();
+        jdbcTemplate.query("SELECT id, row_key, row_hash FROM books WHERE row_key IS NOT NULL", (RowCallbackHandler) rs -> {
+            long hash = rs.getLong("row_hash");
+            knownRows.put(rs.getString("row_key"), new KnownRow(rs.getLong("id"), rs.wasNull() ? null : hash));
+        });
+        return knownRows;
+    }
+
+    // The chunk's entities are detached now; keeping only their ids lets them be collected
+    private static void written(List<KnownRow> pending) {
+        for (KnownRow known : pending) {
+            known.written();
+        }
+        pending.clear();
+    }
+
+    private void writeChunk(List<Books> inserts, List<Object[]> updates) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < inserts.size(); i++) {
+                entityManager.persist(inserts.get(i));
+                if ((i + 1) % flushSize == 0) {
+                    entityManager.flush();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            }
+        });
+    }
+
+    // A null rating keeps the one in the table
+    private static Object[] updateArgs(Books book, long hash, Integer rating, long id) {
+        return new Object[]{book.getTitle(), book.getAuthor(), MONTHS.convertToDatabaseColumn(book.getDate()),
+                book.getViews(), book.getLikes(), book.getLink(), AuthorKey.of(book.getAuthor()), hash, rating, id};
+    }
+
+    private static void copyCatalogColumns(Books from, Books to) {
+        to.setTitle(from.getTitle());
+        to.setAuthor(from.getAuthor());
+        to.setDate(from.getDate());
+        to.setViews(from.getViews());
+        to.setLikes(from.getLikes());
+        to.setLink(from.getLink());
+    }
+
+    static Books toBook(String[] row) {
+        Books books = new Books();
+        books.setTitle(column(row, 0));
+        books.setAuthor(column(row, 1));
+        books.setDate(CatalogValues.parseMonth(column(row, 2)));
+        books.setViews(CatalogValues.parseCount(column(row, 3)));
+        books.setLikes(CatalogValues.parseIntCount(column(row, 4)));
+        books.setLink(column(row, 5));
+        String rating = column(row, 6);
+        if (rating != null && !rating.isEmpty() && rating.matches("\\d+")) {
+            books.setRating(Integer.parseInt(rating));
+        }
+        return books;
+    }
+
+    private static String column(String[] row, int index) {
+        return index < row.length ? row[index] : null;
+    }
+
+    // A book already in the table (id known) or inserted by this import (pending entity until its chunk is written)
+    private static final class KnownRow {
+
+        private Long id;
+
+        private Books pending;
+
+        // Inserted by this import, so a later row in the file also sets its rating
+        private final boolean inserted;
+
+        private Long hash;
+
+        // File position of the row last applied in this import; -1 until one is
+        private long position = -1;
+
+        KnownRow(long id, Long hash) {
+            this.id = id;
+            this.pending = null;
+            this.inserted = false;
+            this.hash = hash;
+        }
+
+        KnownRow(Books pending, long position) {
+            this.id = null;
+            this.pending = pending;
+            this.inserted = true;
+            this.hash = pending.getRowHash();
+            this.position = position;
+        }
+
+        void written() {
+            id = pending.getId();
+            pending = null;
+        }
+    }
+}
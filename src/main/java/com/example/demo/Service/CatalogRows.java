@@ -0,0 +1,26 @@
+package com.example.demo.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A source of raw catalog rows, read one at a time by {@link CatalogImporter}. Returns
+ * {@code null} once the source is exhausted.
+ */
+@FunctionalInterface
+public interface CatalogRows extends Closeable {
+
+    String[] next() throws IOException;
+
+    /**
+     * Where the row last returned by {@link #next()} starts in the source, for sources that
+     * return rows out of file order; -1 for sources that read in file order.
+     */
+    default long position() {
+        return -1;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.Service;
+
+import java.util.concurrent.TimeUnit;
+
+public class ImportStats {
+
+    private final long rows;
+
+    private final long inserted;
+
+    private final long updated;
+
+    private final long unchanged;
+
+    private final long elapsedNanos;
+
+    public ImportStats(long rows, long elapsedNanos) {
+        this(rows, rows, 0, 0, elapsedNanos);
+    }
+
+    public ImportStats(long rows, long inserted, long updated, long unchanged, long elapsedNanos) {
+        this.rows = rows;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public long getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return rows;
+        }
+        return rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return rows + " rows in " + getElapsedMillis() + " ms (" + getRowsPerSecond() + " rows/sec; "
+                + inserted + " inserted, " + updated + " updated, " + unchanged + " unchanged)";
+    }
+}
@@ -0,0 +1,428 @@
+package com.example.demo.Service;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Parses large catalog CSV files on a fork-join pool. The file is memory-mapped and cut into
+ * chunks of roughly {@code chunkBytes}; each cut is moved forward to the first line break that
+ * is outside a quoted field, which is known from the parity of the quotes counted before it.
+ * Chunks are parsed independently (RFC 4180 quoting, {@code ""} as an escaped quote) and handed
+ * over in batches through a bounded queue, so parsing never runs more than
+ * {@code queueCapacity} batches ahead of persistence.
+ *
+ * Rows from different chunks arrive in no particular order; {@link CatalogRows#position()} gives
+ * the byte offset each row starts at, so callers can still tell which of two rows comes later
+ * in the file. Resources that are not plain files, such as a {@code data.csv} packaged in the
+ * jar, are streamed in file order through OpenCSV on the calling thread, configured to read
+ * fields exactly as the parser here does.
+ */
+@Component
+public class ParallelCsvParser {
+
+    private static final int MAPPING_SHIFT = 30;
+
+    private static final long MAPPING_SIZE = 1L << MAPPING_SHIFT;
+
+    private final int threads;
+
+    private final int chunkBytes;
+
+    private final int queueCapacity;
+
+    private final int batchRows;
+
+    public ParallelCsvParser(@Value("${catalog.import.parser-threads:0}") int threads,
+                             @Value("${catalog.import.chunk-bytes:8388608}") int chunkBytes,
+                             @Value("${catalog.import.queue-capacity:64}") int queueCapacity,
+                             @Value("${catalog.import.batch-rows:1000}") int batchRows) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkBytes = Math.max(1, chunkBytes);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.batchRows = Math.max(1, batchRows);
+    }
+
+    public CatalogRows open(Resource resource) throws IOException {
+        if (resource.isFile()) {
+            return open(resource.getFile().toPath());
+        }
+        CSVReader csvReader = csvReader(new InputStreamReader(skipBom(resource.getInputStream()), StandardCharsets.UTF_8));
+        return new CatalogRows() {
+            @Override
+            public String[] next() throws IOException {
+                return csvReader.readNext();
+            }
+
+            @Override
+            public void close() throws IOException {
+                csvReader.close();
+            }
+        };
+    }
+
+    /**
+     * An OpenCSV reader that splits fields like {@link #parse}: RFC 4180 quoting with {@code ""}
+     * as the only escape. OpenCSV's default backslash escape would otherwise drop the backslash
+     * from {@code \"}, and the same file would hash differently depending on how it was read.
+     */
+    static CSVReader csvReader(Reader reader) {
+        return new CSVReaderBuilder(reader)
+                .withCSVParser(new CSVParserBuilder()
+                        .withEscapeChar(CSVParser.NULL_CHARACTER)
+                        .withIgnoreQuotations(false)
+                        .build())
+                .build();
+    }
+
+    // The mapped path skips a UTF-8 byte order mark too, so the first title reads the same
+    private static InputStream skipBom(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 3);
+        byte[] head = new byte[3];
+        int read = pushback.readNBytes(head, 0, 3);
+        if (read < 3 || head[0] != (byte) 0xEF || head[1] != (byte) 0xBB || head[2] != (byte) 0xBF) {
+            pushback.unread(head, 0, read);
+        }
+        return pushback;
+    }
+
+    public CatalogRows open(Path file) throws IOException {
+        MappedFile mapped = MappedFile.map(file);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long[] boundaries = recordBoundaries(mapped, pool);
+            return new QueuedRows(mapped, boundaries, pool);
+        } catch (IOException | RuntimeException e) {
+            pool.shutdownNow();
+            throw e;
+        }
+    }
+
+    private long[] recordBoundaries(MappedFile file, ForkJoinPool pool) throws IOException {
+        long size = file.size();
+        long start = hasBom(file) ? 3 : 0;
+        int chunks = (int) Math.max(1, (size - start + chunkBytes - 1) / chunkBytes);
+
+        // Quotes per raw chunk, counted in parallel; a prefix sum gives the quote parity at each cut
+        long[] quotes;
+        try {
+            quotes = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .mapToLong(i -> countQuotes(file, start + (long) i * chunkBytes, Math.min(size, start + (long) (i + 1) * chunkBytes)))
+                    .toArray()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while splitting " + file, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not split " + file, e.getCause());
+        }
+
+        long[] boundaries = new long[chunks + 1];
+        boundaries[0] = start;
+        long quotesBefore = 0;
+        for (int i = 1; i < chunks; i++) {
+            quotesBefore += quotes[i - 1];
+            long cut = Math.min(size, start + (long) i * chunkBytes);
+            // A long quoted field can carry the previous chunk past this cut; the chunk is then empty
+            boundaries[i] = boundaries[i - 1] >= cut
+                    ? boundaries[i - 1]
+                    : nextRecordStart(file, cut, (quotesBefore & 1) == 1);
+        }
+        boundaries[chunks] = size;
+        return boundaries;
+    }
+
+    private static boolean hasBom(MappedFile file) {
+        return file.size() >= 3 && file.get(0) == (byte) 0xEF && file.get(1) == (byte) 0xBB && file.get(2) == (byte) 0xBF;
+    }
+
+    private static long countQuotes(MappedFile file, long from, long to) {
+        long count = 0;
+        for (long pos = from; pos < to; pos++) {
+            if (file.get(pos) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // First position after a line break that is not inside a quoted field
+    static long nextRecordStart(MappedFile file, long from, boolean inQuotes) {
+        long size = file.size();
+        for (long pos = from; pos < size; pos++) {
+            byte b = file.get(pos);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                return pos + 1;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Parses the records in {@code [from, to)} and passes them on in batches of {@code batchRows},
+     * each row with the offset it starts at. Blank lines are skipped; a quoted field may span lines.
+     */
+    static void parse(MappedFile file, long from, long to, int batchRows, BatchSink sink) throws InterruptedException {
+        Batch batch = new Batch(batchRows);
+        List<String> fields = new ArrayList<>();
+        FieldBuffer field = new FieldBuffer();
+        long pos = from;
+        while (pos < to) {
+            long recordStart = pos;
+            fields.clear();
+            boolean endOfRecord = false;
+            while (!endOfRecord) {
+                field.reset();
+                if (pos < to && file.get(pos) == '"') {
+                    pos++;
+                    while (pos < to) {
+                        byte b = file.get(pos++);
+                        if (b == '"') {
+                            if (pos < to && file.get(pos) == '"') {
+                                field.append(b);
+                                pos++;
+                            } else {
+                                break;
+                            }
+                        } else {
+                            field.append(b);
+                        }
+                    }
+                }
+                while (pos < to) {
+                    byte b = file.get(pos);
+                    if (b == ',' || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    field.append(b);
+                    pos++;
+                }
+                fields.add(field.toString());
+                if (pos >= to) {
+                    endOfRecord = true;
+                } else {
+                    byte delimiter = file.get(pos++);
+                    if (delimiter != ',') {
+                        if (delimiter == '\r' && pos < to && file.get(pos) == '\n') {
+                            pos++;
+                        }
+                        endOfRecord = true;
+                    }
+                }
+            }
+            if (fields.size() > 1 || !fields.get(0).isEmpty()) {
+                batch.add(fields.toArray(new String[0]), recordStart);
+                if (batch.size() == batchRows) {
+                    sink.accept(batch);
+                    batch = new Batch(batchRows);
+                }
+            }
+        }
+        if (batch.size() > 0) {
+            sink.accept(batch);
+        }
+    }
+
+    @FunctionalInterface
+    interface BatchSink {
+        void accept(Batch batch) throws InterruptedException;
+    }
+
+    // Parsed rows and the file offset each one starts at
+    static final class Batch {
+
+        final List<String[]> rows;
+
+        final long[] offsets;
+
+        Batch(int capacity) {
+            this.rows = new ArrayList<>(capacity);
+            this.offsets = new long[capacity];
+        }
+
+        void add(String[] row, long offset) {
+            offsets[rows.size()] = offset;
+            rows.add(row);
+        }
+
+        int size() {
+            return rows.size();
+        }
+    }
+
+    /**
+     * Consumer side of the queue. Every chunk is a task on the pool; the last task to finish
+     * enqueues the end marker, and a failed task records its error and ends the stream early.
+     */
+    private final class QueuedRows implements CatalogRows {
+
+        private final Batch end = new Batch(0);
+
+        private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final ForkJoinPool pool;
+
+        private volatile Throwable failure;
+
+        private Batch current = end;
+
+        private int position;
+
+        private boolean finished;
+
+        QueuedRows(MappedFile file, long[] boundaries, ForkJoinPool pool) {
+            this.pool = pool;
+            AtomicInteger remaining = new AtomicInteger(boundaries.length - 1);
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                long from = boundaries[i];
+                long to = boundaries[i + 1];
+                pool.execute(() -> {
+                    try {
+                        parse(file, from, to, batchRows, queue::put);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (RuntimeException | Error e) {
+                        failure = e;
+                        queue.clear();
+                        queue.offer(end);
+                        return;
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        try {
+                            queue.put(end);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+        }
+
+        @Override
+        public String[] next() throws IOException {
+            while (position == current.size()) {
+                if (finished) {
+                    return null;
+                }
+                try {
+                    current = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading catalog rows", e);
+                }
+                position = 0;
+                if (failure != null) {
+                    throw new IOException("Could not parse catalog file", failure);
+                }
+                if (current == end) {
+                    finished = true;
+                }
+            }
+            return current.rows.get(position++);
+        }
+
+        @Override
+        public long position() {
+            return position == 0 ? -1 : current.offsets[position - 1];
+        }
+
+        @Override
+        public void close() {
+            pool.shutdownNow();
+        }
+    }
+
+    // Grows as needed; bytes are decoded as UTF-8 once the field is complete
+    private static final class FieldBuffer {
+
+        private byte[] bytes = new byte[64];
+
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        void append(byte b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = b;
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A read-only mapping of a whole file. A single {@link MappedByteBuffer} is limited to 2 GB,
+     * so larger files are mapped as consecutive 1 GB regions.
+     */
+    static final class MappedFile {
+
+        private final MappedByteBuffer[] regions;
+
+        private final long size;
+
+        private final Path path;
+
+        private MappedFile(MappedByteBuffer[] regions, long size, Path path) {
+            this.regions = regions;
+            this.size = size;
+            this.path = path;
+        }
+
+        static MappedFile map(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((size + MAPPING_SIZE - 1) >>> MAPPING_SHIFT)];
+                for (int i = 0; i < regions.length; i++) {
+                    long offset = (long) i << MAPPING_SHIFT;
+                    regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MAPPING_SIZE, size - offset));
+                }
+                return new MappedFile(regions, size, path);
+            }
+        }
+
+        long size() {
+            return size;
+        }
+
+        byte get(long position) {
+            return regions[(int) (position >>> MAPPING_SHIFT)].get((int) (position & (MAPPING_SIZE - 1)));
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+}
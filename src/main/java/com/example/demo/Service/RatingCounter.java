@@ -0,0 +1,167 @@
+package com.example.demo.Service;
+
+import com.example.demo.Component.RatingsFlushedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind counter for rating increments. Reads only bump a striped {@link LongAdder}
+ * per book id; the accumulated deltas are written back periodically as batched
+ * {@code UPDATE books SET rating = rating + ?} statements and once more on shutdown. Each
+ * written batch is then published as a {@link RatingsFlushedEvent}, which is how the in-memory
+ * indexes follow the ratings without re-reading the catalog.
+ */
+@Component
+public class RatingCounter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingCounter.class);
+
+    static final String UPDATE_SQL = "UPDATE books SET rating = rating + ? WHERE id = ?";
+
+    // Below the embedded web server's phases, so it has stopped taking requests before the final flush
+    static final int SHUTDOWN_PHASE = 0;
+
+    // Entries are never removed, so an increment always lands on the adder a flush reads; the map
+    // is bounded by the number of books in the catalog
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int batchSize;
+
+    private final Counter increments;
+
+    private final Counter writes;
+
+    private volatile boolean running;
+
+    public RatingCounter(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                         @Value("${catalog.rating.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = Math.max(1, batchSize);
+        this.increments = meterRegistry.counter("catalog.rating.increments");
+        this.writes = meterRegistry.counter("catalog.rating.writes");
+        meterRegistry.gauge("catalog.rating.pending.books", this, RatingCounter::pendingBooks);
+    }
+
+    public void increment(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        pending.computeIfAbsent(bookId, id -> new LongAdder()).increment();
+        increments.increment();
+    }
+
+    // Books with increments not yet written; the map itself also keeps every book already flushed
+    public long pendingBooks() {
+        long books = 0;
+        for (LongAdder adder : pending.values()) {
+            if (adder.sum() != 0) {
+                books++;
+            }
+        }
+        return books;
+    }
+
+    public long pendingFor(Long bookId) {
+        LongAdder adder = pending.get(bookId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Writes the pending deltas and subtracts what was written from each adder. The read and the
+     * subtraction are not one atomic step, so increments landing in between stay pending for
+     * the next flush; a failed batch subtracts nothing and is retried as a whole.
+     */
+    @Scheduled(fixedDelayString = "${catalog.rating.flush-interval-ms:1000}")
+    public synchronized int flush() {
+        List<Object[]> batch = new ArrayList<>();
+        int written = 0;
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sum();
+            if (delta != 0) {
+                batch.add(new Object[]{delta, entry.getKey()});
+            }
+            if (batch.size() == batchSize) {
+                written += write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += write(batch);
+        }
+        return written;
+    }
+
+    /**
+     * Runs {@code action} while no flush is in progress. Every batch written before it has then
+     * also been published, and no batch is written while it runs, so a reader of the ratings
+     * in the database can tell exactly which {@link RatingsFlushedEvent}s it has seen.
+     */
+    public synchronized void betweenFlushes(Runnable action) {
+        action.run();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * The final flush. Lifecycle beans are stopped before any bean is destroyed, so its batches
+     * still reach every listener, and the snapshot file saved on destroy already includes them.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        int written = flush();
+        log.info("Flushed {} pending rating updates on shutdown", written);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SHUTDOWN_PHASE;
+    }
+
+    private int write(List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+        } catch (DataAccessException e) {
+            // The deltas were never subtracted, so the next flush retries them
+            log.warn("Rating flush failed, {} updates will be retried", batch.size(), e);
+            return 0;
+        }
+        Map<Long, Long> deltas = new HashMap<>(batch.size() * 4 / 3 + 1);
+        for (Object[] args : batch) {
+            pending.get((Long) args[1]).add(-(Long) args[0]);
+            deltas.put((Long) args[1], (Long) args[0]);
+        }
+        writes.increment(batch.size());
+        eventPublisher.publishEvent(new RatingsFlushedEvent(this, deltas));
+        return batch.size();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.Service;
+
+import com.example.demo.Component.CatalogLoadedEvent;
+import com.example.demo.Model.Suggestion;
+import com.example.demo.Repository.CatalogSnapshot;
+import com.example.demo.Repository.CatalogSnapshotStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type-ahead over titles and authors. Suggestions come from an immutable {@link SuggestionTrie}
+ * that is rebuilt off the request path from the shared {@link CatalogSnapshot} when a new one is
+ * loaded, and again every {@code catalog.suggest.refresh-interval-ms} to re-rank on the
+ * snapshot's current ratings, then swapped in atomically. Neither reads the database.
+ */
+@Service
+public class SuggestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionService.class);
+
+    private final CatalogSnapshotStore catalogSnapshotStore;
+
+    private final int maxResults;
+
+    private volatile SuggestionTrie trie = SuggestionTrie.empty();
+
+    public SuggestionService(CatalogSnapshotStore catalogSnapshotStore,
+                             @Value("${catalog.suggest.max-results:10}") int maxResults) {
+        this.catalogSnapshotStore = catalogSnapshotStore;
+        this.maxResults = Math.max(1, maxResults);
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return trie.lookup(prefix, Math.min(limit, maxResults));
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    @EventListener
+    public void onCatalogLoaded(CatalogLoadedEvent event) {
+        rebuild(event.getSnapshot());
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${catalog.suggest.refresh-interval-ms:900000}",
+            initialDelayString = "${catalog.suggest.refresh-interval-ms:900000}")
+    public void rebuild() {
+        CatalogSnapshot snapshot = catalogSnapshotStore.loaded();
+        if (snapshot != null) {
+            rebuild(snapshot);
+        }
+    }
+
+    public synchronized void rebuild(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        SuggestionTrie rebuilt = SuggestionTrie.build(suggestionsOf(snapshot), maxResults);
+        trie = rebuilt;
+        log.info("Suggestion index built over {} entries in {} ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // One entry per distinct title and per author; an author ranks by their best-rated book
+    static List<Suggestion> suggestionsOf(CatalogSnapshot snapshot) {
+        Map<String, Integer> titles = new HashMap<>();
+        Map<String, Integer> authors = new HashMap<>();
+        for (int doc = 0; doc < snapshot.size(); doc++) {
+            String title = snapshot.title(doc);
+            String author = snapshot.author(doc);
+            int rating = snapshot.rating(doc);
+            if (title != null && !title.isEmpty()) {
+                titles.merge(title, rating, Math::max);
+            }
+            if (author != null && !author.isEmpty()) {
+                authors.merge(author, rating, Math::max);
+            }
+        }
+        List<Suggestion> suggestions = new ArrayList<>(titles.size() + authors.size());
+        titles.forEach((title, rating) -> suggestions.add(new Suggestion(title, Suggestion.TITLE, rating)));
+        authors.forEach((author, rating) -> suggestions.add(new Suggestion(author, Suggestion.AUTHOR, rating)));
+        return suggestions;
+    }
+
+    public int size() {
+        return trie.size();
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.demo.Service;
+
+import com.example.demo.Model.Suggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable radix trie from normalised prefixes to suggestions. Every node stores the ids of the
+ * best {@code k} suggestions below it, so a lookup is a walk down at most {@code |prefix|} edges
+ * followed by a copy of that list, independent of how many entries share the prefix.
+ *
+ * A suggestion is reachable from its whole normalised text and from the start of every later
+ * word, so "climate" finds "How to Fix the Climate".
+ */
+final class SuggestionTrie {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Node EMPTY_NODE = new Node("", new char[0], new Node[0], new int[0]);
+
+    private final Suggestion[] suggestions;
+
+    private final Node root;
+
+    private SuggestionTrie(Suggestion[] suggestions, Node root) {
+        this.suggestions = suggestions;
+        this.root = root;
+    }
+
+    static SuggestionTrie empty() {
+        return new SuggestionTrie(new Suggestion[0], EMPTY_NODE);
+    }
+
+    int size() {
+        return suggestions.length;
+    }
+
+    List<Suggestion> lookup(String prefix, int limit) {
+        String query = normalise(prefix);
+        if (query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Node node = root;
+        int matched = 0;
+        while (matched < query.length()) {
+            int child = Arrays.binarySearch(node.firstChars, query.charAt(matched));
+            if (child < 0) {
+                return Collections.emptyList();
+            }
+            node = node.children[child];
+            int length = Math.min(node.label.length(), query.length() - matched);
+            if (!node.label.regionMatches(0, query, matched, length)) {
+                return Collections.emptyList();
+            }
+            matched += length;
+        }
+        int count = Math.min(limit, node.top.length);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(suggestions[node.top[i]]);
+        }
+        return result;
+    }
+
+    // Lower case, accents removed, runs of anything but letters and digits collapsed to one space
+    static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        StringBuilder normalised = new StringBuilder(folded.length());
+        boolean space = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && normalised.length() > 0) {
+                    normalised.append(' ');
+                }
+                normalised.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalised.toString();
+    }
+
+    static SuggestionTrie build(List<Suggestion> entries, int k) {
+        Suggestion[] suggestions = entries.toArray(new Suggestion[0]);
+        // Ids in rank order, so "better" is simply "smaller id" while merging
+        Arrays.sort(suggestions, Comparator.comparingInt(Suggestion::getRating).reversed()
+                .thenComparing(Suggestion::getText).thenComparing(Suggestion::getKind));
+
+        List<Key> keys = new ArrayList<>();
+        for (int id = 0; id < suggestions.length; id++) {
+            String text = normalise(suggestions[id].getText());
+            int start = 0;
+            while (!text.isEmpty()) {
+                keys.add(new Key(text.substring(start), id));
+                int space = text.indexOf(' ', start);
+                if (space < 0) {
+                    break;
+                }
+                start = space + 1;
+            }
+        }
+        keys.sort(Comparator.comparing((Key key) -> key.text).thenComparingInt(key -> key.id));
+        if (keys.isEmpty()) {
+            return new SuggestionTrie(suggestions, EMPTY_NODE);
+        }
+        return new SuggestionTrie(suggestions, node(keys, 0, keys.size(), 0, "", Math.max(1, k)));
+    }
+
+    // Keys [from, to) share their first depth characters; label is the edge into this node
+    private static Node node(List<Key> keys, int from, int to, int depth, String label, int k) {
+        int end = depth;
+        String first = keys.get(from).text;
+        String last = keys.get(to - 1).text;
+        // Sorted keys: the common prefix of the range is the common prefix of its first and last key.
+        // The root keeps an empty label so every lookup starts by choosing a child.
+        while (depth > 0 && end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end)) {
+            end++;
+        }
+        String fullLabel = label + first.substring(depth, end);
+
+        List<int[]> candidates = new ArrayList<>();
+        List<Node> children = new ArrayList<>();
+        int i = from;
+        int[] terminal = new int[to - from];
+        int terminalCount = 0;
+        while (i < to && keys.get(i).text.length() == end) {
+            terminal[terminalCount++] = keys.get(i++).id;
+        }
+        candidates.add(Arrays.copyOf(terminal, terminalCount));
+        while (i < to) {
+            char c = keys.get(i).text.charAt(end);
+            int j = i;
+            while (j < to && keys.get(j).text.charAt(end) == c) {
+                j++;
+            }
+            Node child = node(keys, i, j, end + 1, String.valueOf(c), k);
+            children.add(child);
+            candidates.add(child.top);
+            i = j;
+        }
+
+        char[] firstChars = new char[children.size()];
+        for (int c = 0; c < firstChars.length; c++) {
+            firstChars[c] = children.get(c).label.charAt(0);
+        }
+        return new Node(fullLabel, firstChars, children.toArray(new Node[0]), best(candidates, k));
+    }
+
+    // Smallest k distinct ids across the candidate lists
+    private static int[] best(List<int[]> candidates, int k) {
+        int total = 0;
+        for (int[] ids : candidates) {
+            total += ids.length;
+        }
+        int[] all = new int[total];
+        int size = 0;
+        for (int[] ids : candidates) {
+            System.arraycopy(ids, 0, all, size, ids.length);
+            size += ids.length;
+        }
+        Arrays.sort(all);
+        int[] best = new int[Math.min(k, total)];
+        int count = 0;
+        for (int i = 0; i < total && count < best.length; i++) {
+            if (count == 0 || best[count - 1] != all[i]) {
+                best[count++] = all[i];
+            }
+        }
+        return count == best.length ? best : Arrays.copyOf(best, count);
+    }
+
+    private static final class Key {
+
+        final String text;
+
+        final int id;
+
+        Key(String text, int id) {
+            this.text = text;
+            this.id = id;
+        }
+    }
+
+    private static final class Node {
+
+        final String label;
+
+        final char[] firstChars;
+
+        final Node[] children;
+
+        final int[] top;
+
+        Node(String label, char[] firstChars, Node[] children, int[] top) {
+            this.label = label;
+            this.firstChars = firstChars;
+            this.children = children;
+            this.top = top;
+        }
+    }
+}
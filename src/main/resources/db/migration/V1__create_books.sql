@@ -0,0 +1,34 @@
+-- Catalog table. Column types follow the Books entity; Hibernate only validates the schema.
+CREATE TABLE books (
+    id     BIGINT       NOT NULL,
+    title  VARCHAR(255),
+    author VARCHAR(255),
+    date   INT,
+    views  BIGINT       NOT NULL DEFAULT 0,
+    likes  INT          NOT NULL DEFAULT 0,
+    link   VARCHAR(512),
+    rating INT          NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- Table-backed sequence for the pooled id generator on Books
+CREATE TABLE books_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO books_seq (next_val) VALUES (1);
+
+-- findByAuthor / findByAuthorAfter: equality on author, rows already in rating order
+CREATE INDEX idx_books_author_rating ON books (author, rating DESC, id DESC);
+
+-- findByExactTitleMatch / findByExactTitleMatchAfter and the exact branch of the combined search
+CREATE INDEX idx_books_title_rating ON books (title, rating DESC, id DESC);
+
+-- Popularity orders offered by the search endpoints
+CREATE INDEX idx_books_rating ON books (rating DESC, id DESC);
+CREATE INDEX idx_books_views ON books (views DESC, id DESC);
+CREATE INDEX idx_books_likes ON books (likes DESC, id DESC);
+CREATE INDEX idx_books_date ON books (date DESC, id DESC);
+
+-- Keyword search (catalog.search.index=fulltext)
+CREATE FULLTEXT INDEX ft_books_title_author ON books (title, author);
@@ -0,0 +1,17 @@
+-- Row identity and content hash used by the incremental import
+ALTER TABLE books
+    ADD COLUMN row_key  CHAR(40),
+    ADD COLUMN row_hash BIGINT;
+
+-- Same key as CatalogFingerprint.rowKey; row_hash stays NULL so the next import refreshes these rows once
+UPDATE books
+SET row_key = SHA1(CONCAT(LOWER(TRIM(COALESCE(title, ''))), CHAR(31), LOWER(TRIM(COALESCE(author, '')))));
+
+-- One row per imported source file; an unchanged checksum lets startup skip the import
+CREATE TABLE catalog_import_checkpoint (
+    source       VARCHAR(255) NOT NULL,
+    checksum     CHAR(64)     NOT NULL,
+    rows_read    BIGINT       NOT NULL,
+    completed_at TIMESTAMP    NOT NULL,
+    PRIMARY KEY (source)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
@@ -0,0 +1,15 @@
+-- Normalised author (AuthorKey.of) that author lookups compare against
+ALTER TABLE books
+    ADD COLUMN author_key VARCHAR(512);
+
+-- Covers ASCII names until the import below rewrites every key through the full pipeline
+UPDATE books
+SET author_key = REGEXP_REPLACE(LOWER(TRIM(author)), '[[:space:]]+', ' ');
+
+-- Forget the checkpoints and row hashes so the next import updates every row once
+UPDATE books SET row_hash = NULL;
+DELETE FROM catalog_import_checkpoint;
+
+-- findByAuthorKey / findByAuthorKeyAfter: equality on the key, rows already in rating order
+CREATE INDEX idx_books_author_key_rating ON books (author_key, rating DESC, id DESC);
+DROP INDEX idx_books_author_rating ON books;
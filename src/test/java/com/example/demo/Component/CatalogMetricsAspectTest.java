@@ -0,0 +1,54 @@
+package com.example.demo.Component;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class CatalogMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CatalogMetricsAspect catalogMetricsAspect;
+
+    private ProceedingJoinPoint joinPoint;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogMetricsAspect = new CatalogMetricsAspect(meterRegistry);
+        joinPoint = mock(ProceedingJoinPoint.class);
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn("findByAuthor");
+        when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    @Test
+    @DisplayName("Should time the call and count the rows it returns")
+    void timeRepositoryCountsRows() throws Throwable {
+        when(joinPoint.proceed()).thenReturn(Arrays.asList("a", "b", "c"));
+
+        catalogMetricsAspect.timeRepository(joinPoint);
+
+        assertEquals(1, meterRegistry.timer("catalog.repository", "method", "findByAuthor", "outcome", "success").count());
+        assertEquals(3, meterRegistry.counter("catalog.repository.rows", "method", "findByAuthor").count());
+    }
+
+    @Test
+    @DisplayName("Should record failed calls with an error outcome and rethrow")
+    void timeServiceRecordsErrors() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, () -> catalogMetricsAspect.timeService(joinPoint));
+
+        assertEquals(1, meterRegistry.timer("catalog.service", "method", "findByAuthor", "outcome", "error").count());
+    }
+}
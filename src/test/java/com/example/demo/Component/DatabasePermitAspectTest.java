@@ -0,0 +1,89 @@
+package com.example.demo.Component;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class DatabasePermitAspectTest {
+
+    @Test
+    @DisplayName("Should release the permit after the call, also when it fails")
+    void releasesPermit() throws Throwable {
+        DatabasePermitAspect aspect = new DatabasePermitAspect(2, Duration.ofSeconds(1));
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenReturn("ok").thenThrow(new IllegalStateException("boom"));
+
+        assertEquals("ok", aspect.withPermit(joinPoint));
+        assertThrows(IllegalStateException.class, () -> aspect.withPermit(joinPoint));
+        assertEquals(2, aspect.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Should keep the permit of a streamed result until the stream is closed")
+    void streamHoldsPermitUntilClosed() throws Throwable {
+        DatabasePermitAspect aspect = new DatabasePermitAspect(2, Duration.ofSeconds(1));
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenReturn(Stream.of("a", "b"));
+
+        Stream<?> stream = (Stream<?>) aspect.withPermit(joinPoint);
+        assertEquals(1, aspect.availablePermits());
+
+        stream.close();
+        stream.close();
+        assertEquals(2, aspect.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Should hold a single permit for nested repository calls on the same thread")
+    void nestedCallsShareAPermit() throws Throwable {
+        DatabasePermitAspect aspect = new DatabasePermitAspect(1, Duration.ofMillis(50));
+        ProceedingJoinPoint inner = mock(ProceedingJoinPoint.class);
+        when(inner.proceed()).thenReturn("inner");
+        ProceedingJoinPoint outer = mock(ProceedingJoinPoint.class);
+        when(outer.proceed()).thenAnswer(invocation -> aspect.withPermit(inner));
+
+        assertEquals("inner", aspect.withPermit(outer));
+        assertEquals(1, aspect.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Should reject with 503 when no permit frees up in time")
+    void rejectsWhenSaturated() throws Throwable {
+        DatabasePermitAspect aspect = new DatabasePermitAspect(1, Duration.ofMillis(50));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint slow = mock(ProceedingJoinPoint.class);
+        when(slow.proceed()).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "slow";
+        });
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> {
+            try {
+                return aspect.withPermit(slow);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        running.await(5, TimeUnit.SECONDS);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> aspect.withPermit(mock(ProceedingJoinPoint.class)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+
+        release.countDown();
+        assertEquals("slow", holder.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.Component;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class LegacySchemaMigrationStrategyTest {
+
+    private Flyway flyway;
+
+    private MigrationInfoService info;
+
+    private ResultSet tables;
+
+    private Statement statement;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        flyway = mock(Flyway.class);
+        info = mock(MigrationInfoService.class);
+        Configuration configuration = mock(Configuration.class);
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        tables = mock(ResultSet.class);
+        statement = mock(Statement.class);
+        when(flyway.info()).thenReturn(info);
+        when(flyway.getConfiguration()).thenReturn(configuration);
+        when(configuration.getDataSource()).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.createStatement()).thenReturn(statement);
+        when(metaData.getTables(any(), any(), eq("books"), any())).thenReturn(tables);
+    }
+
+    @Test
+    @DisplayName("Should drop a books table created by ddl-auto before the first migration")
+    void dropsLegacySchema() throws SQLException {
+        when(info.applied()).thenReturn(new MigrationInfo[0]);
+        when(tables.next()).thenReturn(true);
+
+        new LegacySchemaMigrationStrategy(true).migrate(flyway);
+
+        verify(statement).execute(LegacySchemaMigrationStrategy.DROP_SQL);
+        verify(flyway).migrate();
+    }
+
+    @Test
+    @DisplayName("Should leave an empty or already migrated schema alone")
+    void keepsMigratedSchema() throws SQLException {
+        when(info.applied()).thenReturn(new MigrationInfo[0]);
+        when(tables.next()).thenReturn(false);
+        new LegacySchemaMigrationStrategy(true).migrate(flyway);
+
+        when(info.applied()).thenReturn(new MigrationInfo[]{mock(MigrationInfo.class)});
+        new LegacySchemaMigrationStrategy(true).migrate(flyway);
+
+        verify(statement, never()).execute(anyString());
+        verify(flyway, times(2)).migrate();
+    }
+
+    @Test
+    @DisplayName("Should refuse to start on a legacy schema when dropping it is disabled")
+    void failsWhenDropDisabled() throws SQLException {
+        when(info.applied()).thenReturn(new MigrationInfo[0]);
+        when(tables.next()).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> new LegacySchemaMigrationStrategy(false).migrate(flyway));
+
+        verify(statement, never()).execute(anyString());
+        verify(flyway, never()).migrate();
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.demo.Controller;
 
+import com.example.demo.Component.StreamPermits;
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.BookLookupRequest;
+import com.example.demo.Model.BookLookupResult;
 import com.example.demo.Model.Books;
 import com.example.demo.Service.BookServiceInterface;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,14 +12,31 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 class BooksControllerTest {
 
+    private static final Sort RATING_ORDER = Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, RATING_ORDER);
+
     @Mock
     private BookServiceInterface bookServiceInterface;
 
@@ -34,12 +55,12 @@ class BooksControllerTest {
     void getSpecificAuthorWhenNoBooks() {
         String author = "John Doe";
         List<Books> emptyList = new ArrayList<>();
-        when(bookServiceInterface.getBookByAuthor(author)).thenReturn(emptyList);
+        when(bookServiceInterface.getBookByAuthor(author, FIRST_PAGE, null)).thenReturn(emptyList);
 
-        Map<String, Books> result = booksController.getSpecificAuthor(author);
+        Map<String, Books> result = booksController.getSpecificAuthor(author, 0, 20, "rating", null);
 
         assertEquals(0, result.size());
-        verify(bookServiceInterface, times(1)).getBookByAuthor(author);
+        verify(bookServiceInterface, times(1)).getBookByAuthor(author, FIRST_PAGE, null);
     }
 
     @Test
@@ -50,16 +71,16 @@ class BooksControllerTest {
         booksList.add(new Books(1L, "Book 1", author, "2021-01-01", "100", "50", "link1", 4));
         booksList.add(new Books(2L, "Book 2", author, "2021-02-01", "200", "100", "link2", 5));
 
-        when(bookServiceInterface.getBookByAuthor(author)).thenReturn(booksList);
+        when(bookServiceInterface.getBookByAuthor(author, FIRST_PAGE, null)).thenReturn(booksList);
 
         Map<String, Books> expectedMap = new LinkedHashMap<>();
         expectedMap.put("Book 1", new Books(1L, "Book 1", author, "2021-01-01", "100", "50", "link1", 4));
         expectedMap.put("Book 2", new Books(2L, "Book 2", author, "2021-02-01", "200", "100", "link2", 5));
 
-        Map<String, Books> actualMap = booksController.getSpecificAuthor(author);
+        Map<String, Books> actualMap = booksController.getSpecificAuthor(author, 0, 20, "rating", null);
 
         assertEquals(expectedMap, actualMap);
-        verify(bookServiceInterface, times(1)).getBookByAuthor(author);
+        verify(bookServiceInterface, times(1)).getBookByAuthor(author, FIRST_PAGE, null);
     }
 
     @Test
@@ -67,12 +88,12 @@ class BooksControllerTest {
     void getSpecificTitleWhenNoBooksFound() {
         String title = "No Book";
         List<Books> emptyList = new ArrayList<>();
-        when(bookServiceInterface.getBookByExactTitle(title)).thenReturn(emptyList);
+        when(bookServiceInterface.getBookByExactTitle(title, FIRST_PAGE, null)).thenReturn(emptyList);
 
-        List<Books> result = booksController.getSpecificTitle(title);
+        List<Books> result = booksController.getSpecificTitle(title, 0, 20, "rating", null);
 
         assertEquals(emptyList, result);
-        verify(bookServiceInterface, times(1)).getBookByExactTitle(title);
+        verify(bookServiceInterface, times(1)).getBookByExactTitle(title, FIRST_PAGE, null);
     }
 
     @Test
@@ -85,45 +106,40 @@ class BooksControllerTest {
         expectedBooksList.add(book1);
         expectedBooksList.add(book2);
 
-        when(bookServiceInterface.getBookByExactTitle(title)).thenReturn(expectedBooksList);
+        when(bookServiceInterface.getBookByExactTitle(title, FIRST_PAGE, null)).thenReturn(expectedBooksList);
 
-        List<Books> actualBooksList = booksController.getSpecificTitle(title);
+        List<Books> actualBooksList = booksController.getSpecificTitle(title, 0, 20, "rating", null);
 
         assertEquals(expectedBooksList, actualBooksList);
-        verify(bookServiceInterface, times(1)).getBookByExactTitle(title);
+        verify(bookServiceInterface, times(1)).getBookByExactTitle(title, FIRST_PAGE, null);
     }
 
     @Test
     @DisplayName("Should return an empty list when no books match the title")
     void getBooksByTitleWhenNoMatch() {
         String title = "Java Programming";
-        List<Books> exactMatchBooks = new ArrayList<>();
-        List<Books> keywordMatchBooks = new ArrayList<>();
-        when(bookServiceInterface.getBookByExactTitle(title)).thenReturn(exactMatchBooks);
-        when(bookServiceInterface.getBookByKeyword(title)).thenReturn(keywordMatchBooks);
+        when(bookServiceInterface.searchByTitle(title, FIRST_PAGE, null)).thenReturn(new ArrayList<>());
 
-        List<Books> result = booksController.getBooksByTitle(title);
+        List<Books> result = booksController.getBooksByTitle(title, 0, 20, "rating", null);
 
         assertEquals(0, result.size());
-        verify(bookServiceInterface, times(1)).getBookByExactTitle(title);
-        verify(bookServiceInterface, times(1)).getBookByKeyword(title);
+        verify(bookServiceInterface, times(1)).searchByTitle(title, FIRST_PAGE, null);
+        verify(bookServiceInterface, never()).getBookByExactTitle(anyString(), any(Pageable.class), any());
+        verify(bookServiceInterface, never()).getBookByKeyword(anyString(), any(Pageable.class), any());
     }
 
     @Test
-    @DisplayName("Should return a list of books that exactly match the title")
+    @DisplayName("Should return exact title matches ahead of keyword matches")
     void getBooksByTitleWhenExactMatch() {
         String title = "Java Programming";
-        List<Books> exactMatchBooks = new ArrayList<>();
-        exactMatchBooks.add(new Books(1L, "Java Programming", "John Doe", "2021-01-01", "100", "50", "www.example.com", 4));
-        exactMatchBooks.add(new Books(2L, "Java Programming", "Jane Smith", "2021-02-01", "200", "100", "www.example.com", 5));
-        when(bookServiceInterface.getBookByExactTitle(title)).thenReturn(exactMatchBooks);
+        List<Books> combined = new ArrayList<>();
+        combined.add(new Books(1L, "Java Programming", "John Doe", "2021-01-01", "100", "50", "www.example.com", 4));
+        combined.add(new Books(2L, "Java Programming", "Jane Smith", "2021-02-01", "200", "100", "www.example.com", 5));
+        combined.add(new Books(3L, "Java Programming Basics", "Mike Johnson", "2021-03-01", "150", "75", "www.example.com", 3));
+        combined.add(new Books(4L, "Advanced Java Programming", "Sarah Williams", "2021-04-01", "250", "120", "www.example.com", 4));
+        when(bookServiceInterface.searchByTitle(title, FIRST_PAGE, null)).thenReturn(combined);
 
-        List<Books> keywordMatchBooks = new ArrayList<>();
-        keywordMatchBooks.add(new Books(3L, "Java Programming Basics", "Mike Johnson", "2021-03-01", "150", "75", "www.example.com", 3));
-        keywordMatchBooks.add(new Books(4L, "Advanced Java Programming", "Sarah Williams", "2021-04-01", "250", "120", "www.example.com", 4));
-        when(bookServiceInterface.getBookByKeyword(title)).thenReturn(keywordMatchBooks);
-
-        List<Books> result = booksController.getBooksByTitle(title);
+        List<Books> result = booksController.getBooksByTitle(title, 0, 20, "rating", null);
 
         assertEquals(4, result.size());
         assertEquals("Java Programming", result.get(0).getTitle());
@@ -135,53 +151,155 @@ class BooksControllerTest {
         assertEquals("Advanced Java Programming", result.get(3).getTitle());
         assertEquals("Sarah Williams", result.get(3).getAuthor());
 
-        verify(bookServiceInterface, times(1)).getBookByExactTitle(title);
-        verify(bookServiceInterface, times(1)).getBookByKeyword(title);
+        verify(bookServiceInterface, times(1)).searchByTitle(title, FIRST_PAGE, null);
     }
 
     @Test
-    @DisplayName("Should return a combined list of books that match the title exactly and by keyword")
-    void getBooksByTitleWhenCombinedMatch() {
+    @DisplayName("Should pass the page and cursor through to the combined search")
+    void getBooksByTitleWithCursor() {
         String title = "Java";
-        List<Books> exactMatchBooks = Arrays.asList(
-                new Books(1L, "Java Programming", "John Doe", "2021-01-01", "100", "50", "https://example.com/1", 4),
-                new Books(2L, "Java Basics", "Jane Smith", "2021-02-01", "200", "100", "https://example.com/2", 5)
-        );
-        List<Books> keywordMatchBooks = Arrays.asList(
-                new Books(3L, "Advanced Java", "John Doe", "2021-03-01", "150", "75", "https://example.com/3", 4),
+        BookCursor cursor = new BookCursor(4, 3L);
+        List<Books> nextPage = Arrays.asList(
                 new Books(4L, "Java for Beginners", "Jane Smith", "2021-04-01", "250", "125", "https://example.com/4", 3)
         );
-        List<Books> expectedBooksList = new ArrayList<>();
-        expectedBooksList.addAll(exactMatchBooks);
-        expectedBooksList.addAll(keywordMatchBooks);
+        when(bookServiceInterface.searchByTitle(title, PageRequest.of(0, 10, RATING_ORDER), cursor)).thenReturn(nextPage);
 
-        when(bookServiceInterface.getBookByExactTitle(title)).thenReturn(exactMatchBooks);
-        when(bookServiceInterface.getBookByKeyword(title)).thenReturn(keywordMatchBooks);
+        List<Books> actualBooksList = booksController.getBooksByTitle(title, 0, 10, "rating", cursor);
 
-        List<Books> actualBooksList = booksController.getBooksByTitle(title);
+        assertEquals(nextPage, actualBooksList);
+        verify(bookServiceInterface, times(1)).searchByTitle(title, PageRequest.of(0, 10, RATING_ORDER), cursor);
+    }
 
-        assertEquals(expectedBooksList, actualBooksList);
-        verify(bookServiceInterface, times(1)).getBookByExactTitle(title);
-        verify(bookServiceInterface, times(1)).getBookByKeyword(title);
+    @Test
+    @DisplayName("Should cap the requested page size")
+    void getBooksByTitleCapsPageSize() {
+        String title = "Java";
+        when(bookServiceInterface.searchByTitle(eq(title), any(Pageable.class), isNull())).thenReturn(Collections.emptyList());
+
+        booksController.getBooksByTitle(title, 0, 10_000, "rating", null);
+
+        verify(bookServiceInterface, times(1)).searchByTitle(title, PageRequest.of(0, BooksController.MAX_PAGE_SIZE, RATING_ORDER), null);
     }
 
     @Test
-    @DisplayName("Should return a list of books that match the title by keyword")
-    void getBooksByTitleWhenKeywordMatch() {
+    @DisplayName("Should order by the requested popularity column")
+    void getSpecificAuthorSortedByViews() {
+        String author = "John Doe";
+        Pageable byViews = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "views").and(Sort.by(Sort.Direction.DESC, "id")));
+        when(bookServiceInterface.getBookByAuthor(author, byViews, null)).thenReturn(new ArrayList<>());
+
+        booksController.getSpecificAuthor(author, 0, 20, "views", null);
+
+        verify(bookServiceInterface, times(1)).getBookByAuthor(author, byViews, null);
+    }
+
+    @Test
+    @DisplayName("Should reject unknown sorts and cursors on non-rating sorts")
+    void getSpecificTitleRejectsBadSort() {
+        assertThrows(ResponseStatusException.class, () -> booksController.getSpecificTitle("Java", 0, 20, "title", null));
+        assertThrows(ResponseStatusException.class, () -> booksController.getSpecificTitle("Java", 0, 20, "likes", new BookCursor(1, 1L)));
+        verifyNoInteractions(bookServiceInterface);
+    }
+
+    @Test
+    @DisplayName("Should accept relevance ordering for keyword search only")
+    void relevanceSortOnlyForSearch() {
         String title = "Java";
-        List<Books> exactMatchBooks = new ArrayList<>();
-        List<Books> keywordMatchBooks = new ArrayList<>();
-        Books book1 = new Books(1L, "Java Programming", "John Doe", "2021-01-01", "100", "50", "https://example.com/book1", 4);
-        Books book2 = new Books(2L, "Java Basics", "Jane Smith", "2021-02-01", "200", "100", "https://example.com/book2", 5);
-        keywordMatchBooks.add(book1);
-        keywordMatchBooks.add(book2);
-        when(bookServiceInterface.getBookByExactTitle(title)).thenReturn(Collections.emptyList());
-        when(bookServiceInterface.getBookByKeyword(title)).thenReturn(keywordMatchBooks);
-
-        List<Books> result = booksController.getBooksByTitle(title);
-
-        assertEquals(keywordMatchBooks, result);
-        verify(bookServiceInterface, times(1)).getBookByExactTitle(title);
-        verify(bookServiceInterface, times(1)).getBookByKeyword(title);
-    }
-}
\ No newline at end of file
+        Pageable byRelevance = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "relevance").and(Sort.by(Sort.Direction.DESC, "id")));
+        when(bookServiceInterface.searchByTitle(title, byRelevance, null)).thenReturn(new ArrayList<>());
+
+        booksController.getBooksByTitle(title, 0, 20, "relevance", null);
+
+        verify(bookServiceInterface, times(1)).searchByTitle(title, byRelevance, null);
+        assertThrows(ResponseStatusException.class, () -> booksController.getSpecificAuthor("John Doe", 0, 20, "relevance", null));
+        assertThrows(ResponseStatusException.class, () -> booksController.getBooksByTitle(title, 0, 20, "relevance", new BookCursor(1, 1L)));
+    }
+
+    @Test
+    @DisplayName("Should pass fuzzy searches through with a capped, unsorted page")
+    void getBooksByFuzzyTitle() {
+        when(bookServiceInterface.getBookByFuzzyTitle("climat acton", PageRequest.of(0, BooksController.MAX_PAGE_SIZE)))
+                .thenReturn(new ArrayList<>());
+
+        booksController.getBooksByFuzzyTitle("climat acton", -1, 10_000);
+
+        verify(bookServiceInterface, times(1)).getBookByFuzzyTitle("climat acton", PageRequest.of(0, BooksController.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    @DisplayName("Should resolve authors and titles of a batch lookup with a capped per-key size")
+    void lookupBooks() {
+        Books book = new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 4);
+        Map<String, List<Books>> authors = Map.of("John Doe", List.of(book));
+        Map<String, List<Books>> titles = Map.of("Book 1", List.of(book));
+        when(bookServiceInterface.getBooksByAuthors(List.of("John Doe"), BooksController.MAX_PAGE_SIZE)).thenReturn(authors);
+        when(bookServiceInterface.getBooksByExactTitles(List.of("Book 1"), BooksController.MAX_PAGE_SIZE)).thenReturn(titles);
+
+        BookLookupResult result = booksController.lookupBooks(
+                new BookLookupRequest(List.of("John Doe"), List.of("Book 1")), 10_000);
+
+        assertEquals(authors, result.getAuthors());
+        assertEquals(titles, result.getTitles());
+    }
+
+    @Test
+    @DisplayName("Should reject a batch lookup with too many keys")
+    void lookupBooksTooManyKeys() {
+        List<String> authors = new ArrayList<>();
+        for (int i = 0; i <= BooksController.MAX_LOOKUP_KEYS; i++) {
+            authors.add("Author " + i);
+        }
+
+        assertThrows(ResponseStatusException.class,
+                () -> booksController.lookupBooks(new BookLookupRequest(authors, null), 20));
+        verifyNoInteractions(bookServiceInterface);
+    }
+
+    @Test
+    @DisplayName("Should write one JSON document per line when streaming an author")
+    @SuppressWarnings("unchecked")
+    void streamSpecificAuthor() throws Exception {
+        StreamPermits streamPermits = new StreamPermits(2);
+        BooksController streamingController = new BooksController(bookServiceInterface, Jackson2ObjectMapperBuilder.json().build(), streamPermits);
+        doAnswer(invocation -> {
+            Consumer<Books> sink = invocation.getArgument(2);
+            sink.accept(new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 4));
+            sink.accept(new Books(2L, "Book 2", "John Doe", "2021-01-01", "100", "50", "link2", 3));
+            return null;
+        }).when(bookServiceInterface).streamBookByAuthor(eq("John Doe"), eq(RATING_ORDER), any(Consumer.class));
+
+        ResponseEntity<StreamingResponseBody> response = streamingController.streamSpecificAuthor("John Doe", "rating");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(BooksController.NDJSON, response.getHeaders().getContentType().toString());
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"title\":\"Book 1\""));
+        assertTrue(lines[1].contains("\"title\":\"Book 2\""));
+        assertEquals(2, streamPermits.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Should refuse a stream over the concurrency cap and free the permit when a stream ends")
+    void capsConcurrentStreams() throws Exception {
+        StreamPermits streamPermits = new StreamPermits(1);
+        BooksController streamingController = new BooksController(bookServiceInterface, Jackson2ObjectMapperBuilder.json().build(), streamPermits);
+        doThrow(new IllegalStateException("connection lost")).when(bookServiceInterface).streamByTitle(eq("java"), eq(RATING_ORDER), any());
+
+        ResponseEntity<StreamingResponseBody> first = streamingController.streamBooksByTitle("java", "rating");
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                () -> streamingController.streamBooksByTitle("java", "rating"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getStatus());
+
+        assertThrows(IllegalStateException.class, () -> first.getBody().writeTo(new ByteArrayOutputStream()));
+        assertEquals(1, streamPermits.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Should reject an unsupported sort before streaming titles")
+    void streamBooksByTitleRejectsRelevance() {
+        assertThrows(ResponseStatusException.class, () -> booksController.streamBooksByTitle("java", "relevance"));
+        verifyNoInteractions(bookServiceInterface);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.Model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AuthorKeyTest {
+
+    @Test
+    @DisplayName("Should fold case and collapse whitespace")
+    void foldsCaseAndWhitespace() {
+        assertEquals("martin reeves", AuthorKey.of("Martin Reeves"));
+        assertEquals("martin reeves", AuthorKey.of("  martin \t REEVES\n"));
+        assertEquals("martin reeves", AuthorKey.of("Martin\u00a0Reeves"));
+        assertEquals("", AuthorKey.of("   "));
+        assertNull(AuthorKey.of(null));
+    }
+
+    @Test
+    @DisplayName("Should drop diacritics and fold compatibility forms")
+    void removesDiacritics() {
+        assertEquals("zoe angstrom", AuthorKey.of("Zoë Ångström"));
+        assertEquals("zoe angstrom", AuthorKey.of("Zoe\u0308 A\u030angstro\u0308m"));
+        assertEquals("martin reeves", AuthorKey.of("Ｍａｒｔｉｎ Reeves"));
+        assertEquals("strasse", AuthorKey.of("STRAßE"));
+    }
+
+    @Test
+    @DisplayName("Should keep the vowel signs of scripts that need them")
+    void keepsOtherScripts() {
+        assertEquals("अमित", AuthorKey.of("अमित"));
+        assertEquals("анна", AuthorKey.of("Анна"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.Model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CatalogValuesTest {
+
+    @Test
+    @DisplayName("Should parse the catalog's month formats")
+    void parseMonth() {
+        assertEquals(YearMonth.of(2021, 12), CatalogValues.parseMonth("Dec-21"));
+        assertEquals(YearMonth.of(1984, 2), CatalogValues.parseMonth("Feb-84"));
+        assertEquals(YearMonth.of(1999, 11), CatalogValues.parseMonth("November 1999"));
+        assertEquals(YearMonth.of(2021, 1), CatalogValues.parseMonth("2021-01-01"));
+        assertEquals(YearMonth.of(1925, 1), CatalogValues.parseMonth("1925"));
+    }
+
+    @Test
+    @DisplayName("Should return null for missing or unreadable months")
+    void parseMonthWhenMalformed() {
+        assertNull(CatalogValues.parseMonth(""));
+        assertNull(CatalogValues.parseMonth(null));
+        assertNull(CatalogValues.parseMonth("sometime"));
+    }
+
+    @Test
+    @DisplayName("Should parse counts and fall back to zero for malformed values")
+    void parseCount() {
+        assertEquals(404000L, CatalogValues.parseCount("404000"));
+        assertEquals(0L, CatalogValues.parseCount("-205000"));
+        assertEquals(0L, CatalogValues.parseCount("abcd"));
+        assertEquals(0, CatalogValues.parseIntCount("4.03141E+18"));
+        assertEquals(12000, CatalogValues.parseIntCount("12000"));
+    }
+
+    @Test
+    @DisplayName("Should store months as sortable integers and read them back")
+    void yearMonthConverterRoundTrip() {
+        YearMonthConverter converter = new YearMonthConverter();
+
+        Integer stored = converter.convertToDatabaseColumn(YearMonth.of(2021, 12));
+
+        assertEquals(2021 * 12 + 11, stored);
+        assertEquals(YearMonth.of(2021, 12), converter.convertToEntityAttribute(stored));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Model.Books;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class Bm25SearchIndexTest {
+
+    private CatalogSnapshot snapshot;
+
+    private Bm25SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.build(Arrays.asList(
+                new Books(1L, "The Power of Vulnerability", "Brene Brown", "2010-12-01", "100", "50", "link1", 90),
+                new Books(2L, "How to Fix the Climate", "Jane Smith", "2021-02-01", "200", "100", "link2", 1),
+                new Books(3L, "Climate Change and the Future of Climate Science", "John Doe", "2021-03-01", "300", "150", "link3", 1),
+                new Books(4L, "The Art of the Climate Deal", "Climate Jones", "2021-04-01", "300", "150", "link4", 1),
+                new Books(5L, "Why We Sleep", "Matt Walker", "2019-04-01", "300", "150", "link5", 40)
+        ));
+        searchIndex = new Bm25SearchIndex(mock(CatalogSnapshotStore.class), 0.1);
+        searchIndex.rebuild(snapshot);
+    }
+
+    @Test
+    @DisplayName("Should rank documents matching more query terms above popular partial matches")
+    void ranksByRelevance() {
+        List<Books> result = searchIndex.search(Arrays.asList("climate", "change"), 0, 10);
+
+        assertEquals(3L, result.get(0).getId());
+        assertEquals(3, result.size());
+        assertTrue(ids(result).containsAll(Arrays.asList(2L, 4L)));
+    }
+
+    @Test
+    @DisplayName("Should ignore stop words unless the query has nothing else")
+    void dropsStopWords() {
+        // "the" alone would match four books; with "sleep" only the real match remains
+        assertEquals(Arrays.asList(5L), ids(searchIndex.search(Arrays.asList("the", "sleep"), 0, 10)));
+        assertEquals(4, searchIndex.search(Arrays.asList("the"), 0, 10).size());
+    }
+
+    @Test
+    @DisplayName("Should break equal relevance by rating")
+    void blendsRating() {
+        List<Books> before = searchIndex.search(Arrays.asList("climate"), 0, 10);
+        Books second = before.get(1);
+        snapshot.apply(Collections.singletonMap(second.getId(), 999L));
+
+        List<Books> after = searchIndex.search(Arrays.asList("climate"), 0, 10);
+
+        assertEquals(second.getId(), after.get(0).getId());
+        assertEquals(1_000, after.get(0).getRating());
+    }
+
+    @Test
+    @DisplayName("Should hand out copies that callers can change without touching the index")
+    void returnsCopies() {
+        searchIndex.searchByTitleOrKeywords("Why We Sleep", Arrays.asList("sleep"), 0, 10).get(0).setRating(0);
+        searchIndex.search(Arrays.asList("climate"), 0, 10).forEach(book -> book.setRating(1_000));
+
+        assertEquals(40, searchIndex.searchByTitleOrKeywords("Why We Sleep", Arrays.asList("sleep"), 0, 10).get(0).getRating());
+        assertEquals(3L, searchIndex.search(Arrays.asList("climate", "change"), 0, 10).get(0).getId());
+        assertEquals(1, searchIndex.search(Arrays.asList("climate"), 0, 10).get(0).getRating());
+    }
+
+    @Test
+    @DisplayName("Should page through the ranking with offset and limit")
+    void pagesTopK() {
+        List<Books> all = searchIndex.search(Arrays.asList("climate"), 0, 10);
+
+        List<Books> paged = new ArrayList<>(searchIndex.search(Arrays.asList("climate"), 0, 2));
+        paged.addAll(searchIndex.search(Arrays.asList("climate"), 2, 2));
+
+        assertEquals(ids(all), ids(paged));
+        assertTrue(searchIndex.search(Arrays.asList("climate"), 10, 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should list exact title matches first without repeating them in the ranking")
+    void exactTitleFirst() {
+        List<Books> result = searchIndex.searchByTitleOrKeywords("how to fix the climate",
+                Arrays.asList("how", "to", "fix", "the", "climate"), 0, 10);
+
+        assertEquals(2L, result.get(0).getId());
+        assertEquals(1, result.stream().filter(book -> book.getId() == 2L).count());
+    }
+
+    @Test
+    @DisplayName("Should keep the best scores in descending order")
+    void topKKeepsBest() {
+        Bm25SearchIndex.TopK top = new Bm25SearchIndex.TopK(3);
+        double[] scores = {0.5, 2.0, 1.0, 3.0, 0.1, 2.0};
+        for (int doc = 0; doc < scores.length; doc++) {
+            top.offer(doc, scores[doc]);
+        }
+
+        assertEquals(Arrays.toString(new int[]{3, 1, 5}), Arrays.toString(top.drainDescending()));
+    }
+
+    @Test
+    @DisplayName("Should page exact title matches of equal rating by id so no book repeats or goes missing")
+    void pagesExactTitlesById() {
+        CatalogSnapshot dunes = CatalogSnapshot.build(Arrays.asList(
+                new Books(1L, "Dune", "Frank Herbert", "1965-08-01", "100", "50", "link1", 1),
+                new Books(2L, "Dune", "Frank Herbert", "1965-08-01", "100", "50", "link2", 3),
+                new Books(3L, "Dune", "Frank Herbert", "1965-08-01", "100", "50", "link3", 1)));
+        searchIndex.rebuild(dunes);
+        dunes.apply(Collections.singletonMap(1L, 2L));
+
+        List<Long> paged = new ArrayList<>();
+        for (int offset = 0; offset < 3; offset++) {
+            paged.addAll(ids(searchIndex.searchByTitleOrKeywords("dune", Collections.emptyList(), offset, 1)));
+        }
+
+        assertEquals(Arrays.asList(2L, 1L, 3L), paged);
+    }
+
+    private static List<Long> ids(List<Books> books) {
+        return books.stream().map(Books::getId).collect(Collectors.toList());
+    }
+}
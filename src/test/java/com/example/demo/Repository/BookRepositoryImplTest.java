@@ -8,10 +8,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import java.util.ArrayList;
@@ -55,15 +57,12 @@ public class BookRepositoryImplTest {
 
         MockitoAnnotations.openMocks(this);
 
-        // Set up the mock typedQuery and inject it into the bookRepository
+        // Set up the mock typedQuery returned for every query the repository creates
         when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
         when(criteriaBuilder.createQuery(Books.class)).thenReturn(criteriaQuery);
         when(criteriaQuery.from(Books.class)).thenReturn(root);
         when(entityManager.createQuery(criteriaQuery)).thenReturn(typedQuery);
 
-        // Inject the mock typedQuery into the bookRepository
-        bookRepositoryImpl.setTypedQuery(typedQuery);
-
         // Manually inject the entityManager into the bookRepositoryImpl
         ReflectionTestUtils.setField(bookRepositoryImpl, "entityManager", entityManager);
 
@@ -176,4 +175,29 @@ public class BookRepositoryImplTest {
         // Verify the results
         assertEquals(expectedBooks, result);
     }
+
+    @Test
+    @DisplayName("Should apply the page offset and size to the keyword query")
+    void findByKeywordsPaged() {
+        List<String> keywords = Arrays.asList("java");
+        when(typedQuery.getResultList()).thenReturn(Arrays.asList());
+
+        bookRepositoryImpl.findByKeywords(keywords, PageRequest.of(3, 20, Sort.by(Sort.Direction.DESC, "rating")));
+
+        verify(typedQuery).setFirstResult(60);
+        verify(typedQuery).setMaxResults(20);
+        verify(criteriaQuery).orderBy((List<Order>) any());
+    }
+
+    @Test
+    @DisplayName("Should select plain Books through a constructor expression without flushing first")
+    void findByKeywordsReadsDetachedBooks() {
+        when(typedQuery.getResultList()).thenReturn(Arrays.asList());
+
+        bookRepositoryImpl.findByKeywords(Arrays.asList("java"), Sort.unsorted());
+
+        verify(criteriaBuilder).construct(eq(Books.class), any());
+        verify(criteriaQuery).select(any());
+        verify(typedQuery).setFlushMode(FlushModeType.COMMIT);
+    }
 }
@@ -0,0 +1,168 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Component.CatalogChangedEvent;
+import com.example.demo.Model.Books;
+import com.example.demo.Service.RatingCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class CatalogSnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<Books> books = Arrays.asList(
+            new Books(1L, "Book 1", "John Doe", YearMonth.of(2021, 10), 100, 50, "link1", 4),
+            new Books(2L, "Café ☕ 😀", "John Doe", YearMonth.of(2021, 10), 300, 10, null, 9),
+            new Books(3L, "book 1", "john doe", null, 200, 20, "link3", 4),
+            new Books(4L, null, "Zoë Ångström", YearMonth.of(2019, 4), 5, 1, "link4", 1)
+    );
+
+    @Test
+    @DisplayName("Should map back a written snapshot with the same lookups and source checksum")
+    void roundTrips() throws IOException {
+        Path file = tempDir.resolve("catalog.bin");
+        CatalogSnapshot written = CatalogSnapshot.build(books);
+
+        CatalogSnapshotFile.write(written, "abc123", file);
+        CatalogSnapshotFile read = CatalogSnapshotFile.read(file);
+
+        assertEquals("abc123", read.sourceChecksum());
+        assertEquals(4, read.snapshot().size());
+        assertEquals(Arrays.asList(2L, 3L, 1L), ids(read.snapshot().byAuthor("JOHN DOE")));
+        assertEquals(Arrays.asList(3L, 1L), ids(read.snapshot().byTitle("Book 1")));
+        Books cafe = read.snapshot().byTitle("café ☕ 😀").get(0);
+        assertEquals(YearMonth.of(2021, 10), cafe.getDate());
+        assertNull(cafe.getLink());
+        assertEquals("Zoë Ångström", read.snapshot().byAuthor("zoë ångström").get(0).getAuthor());
+        assertTrue(Files.notExists(tempDir.resolve("catalog.bin.tmp")));
+    }
+
+    @Test
+    @DisplayName("Should reject a file with a flipped byte, a truncated tail or another format version")
+    void rejectsDamagedFiles() throws IOException {
+        Path file = tempDir.resolve("catalog.bin");
+        CatalogSnapshotFile.write(CatalogSnapshot.offHeap(books), "abc123", file);
+        byte[] valid = Files.readAllBytes(file);
+
+        // Inside the id column, just past the header
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(170);
+            raf.write(valid[170] ^ 1);
+        }
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.read(file));
+
+        Files.write(file, Arrays.copyOf(valid, valid.length - 8));
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.read(file));
+
+        byte[] otherVersion = valid.clone();
+        otherVersion[7] = (byte) (CatalogSnapshotFile.VERSION + 1);
+        Files.write(file, otherVersion);
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.read(file));
+    }
+
+    @Test
+    @DisplayName("Should serve the saved file at startup and skip the rebuild only while the source is unchanged")
+    void storeLoadsFile() {
+        Path file = tempDir.resolve("catalog.bin");
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.findAll()).thenReturn(books);
+        CatalogSnapshotStore first = new CatalogSnapshotStore(bookRepository, mock(JdbcTemplate.class), ratingCounter(), event -> { }, true, "heap", file.toString());
+        first.onCatalogChanged(new CatalogChangedEvent(this, 4, "abc123"));
+        first.save();
+
+        CatalogSnapshotStore restarted = new CatalogSnapshotStore(bookRepository, mock(JdbcTemplate.class), ratingCounter(), event -> { }, true, "heap", file.toString());
+        restarted.load();
+        assertEquals(4, restarted.current().size());
+        restarted.onCatalogChanged(new CatalogChangedEvent(this, 0, "abc123"));
+        verify(bookRepository, times(1)).findAll();
+
+        CatalogSnapshotStore changed = new CatalogSnapshotStore(bookRepository, mock(JdbcTemplate.class), ratingCounter(), event -> { }, true, "heap", file.toString());
+        changed.load();
+        changed.onCatalogChanged(new CatalogChangedEvent(this, 0, "def456"));
+        verify(bookRepository, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should read the ratings back from the database when the rebuild is skipped")
+    void storeRefreshesRatingsOfFile() throws IOException {
+        Path file = tempDir.resolve("catalog.bin");
+        CatalogSnapshotFile.write(CatalogSnapshot.build(books), "abc123", file);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet row = mock(ResultSet.class);
+            when(row.getLong("id")).thenReturn(1L);
+            when(row.getInt("rating")).thenReturn(20);
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(eq("SELECT id, rating FROM books"), any(RowCallbackHandler.class));
+        CatalogSnapshotStore store = new CatalogSnapshotStore(mock(BookRepository.class), jdbcTemplate, ratingCounter(), event -> { }, true, "heap", file.toString());
+        store.load();
+
+        store.onCatalogChanged(new CatalogChangedEvent(this, 0, "abc123"));
+        store.save();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(store.current().byAuthor("John Doe")));
+        assertEquals(20, CatalogSnapshotFile.read(file).snapshot().byTitle("Book 1").get(0).getRating());
+    }
+
+    @Test
+    @DisplayName("Should build the search indexes from the mapped file without reading the database")
+    void indexesStartFromFile() throws IOException {
+        Path file = tempDir.resolve("catalog.bin");
+        CatalogSnapshotFile.write(CatalogSnapshot.build(books), "abc123", file);
+        BookRepository bookRepository = mock(BookRepository.class);
+        CatalogSnapshotStore store = new CatalogSnapshotStore(bookRepository, mock(JdbcTemplate.class), ratingCounter(), event -> { }, true, "heap", file.toString());
+
+        store.load();
+        Bm25SearchIndex searchIndex = new Bm25SearchIndex(store, 0.1);
+        searchIndex.load();
+        FuzzyTitleIndex fuzzyTitleIndex = new FuzzyTitleIndex(store, 200);
+        fuzzyTitleIndex.load();
+
+        assertEquals(Arrays.asList(2L), ids(searchIndex.search(Arrays.asList("café"), 0, 10)));
+        assertTrue(ids(fuzzyTitleIndex.search("Bok 1", 0, 10)).containsAll(Arrays.asList(1L, 3L)));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the database when the file is unreadable")
+    void storeIgnoresBadFile() throws IOException {
+        Path file = tempDir.resolve("catalog.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+        CatalogSnapshotStore store = new CatalogSnapshotStore(mock(BookRepository.class), mock(JdbcTemplate.class), ratingCounter(), event -> { }, true, "heap", file.toString());
+
+        store.load();
+
+        assertNull(store.current());
+    }
+
+    private static RatingCounter ratingCounter() {
+        return new RatingCounter(mock(JdbcTemplate.class), event -> { }, new SimpleMeterRegistry(), 500);
+    }
+
+    private static List<Long> ids(List<Books> books) {
+        return books.stream().map(Books::getId).collect(Collectors.toList());
+    }
+}
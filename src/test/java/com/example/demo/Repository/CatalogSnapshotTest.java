@@ -0,0 +1,205 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Component.CatalogLoadedEvent;
+import com.example.demo.Component.RatingsFlushedEvent;
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.Books;
+import com.example.demo.Service.RatingCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class CatalogSnapshotTest {
+
+    private static final Sort RATING_ORDER = Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.build(Arrays.asList(
+                new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 4),
+                new Books(2L, "Book 2", "John Doe", "2021-01-01", "300", "50", "link2", 9),
+                new Books(3L, "Book 3", "john doe", "2021-01-01", "200", "50", "link3", 4),
+                new Books(4L, "Book 1", "Jane Smith", "2021-01-01", "200", "50", "link4", 1)
+        ));
+    }
+
+    @Test
+    @DisplayName("Should page an author's books in rating order, matching the name case-insensitively")
+    void pagesByRating() {
+        assertEquals(Arrays.asList(2L, 3L), ids(snapshot.byAuthor("JOHN DOE", PageRequest.of(0, 2, RATING_ORDER), null)));
+        assertEquals(Arrays.asList(1L), ids(snapshot.byAuthor("John Doe", PageRequest.of(1, 2, RATING_ORDER), null)));
+        assertTrue(snapshot.byAuthor("Nobody", PageRequest.of(0, 2, RATING_ORDER), null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should continue after a keyset cursor")
+    void continuesAfterCursor() {
+        assertEquals(Arrays.asList(1L), ids(snapshot.byAuthor("John Doe", PageRequest.of(0, 2, RATING_ORDER), new BookCursor(4, 3))));
+        assertEquals(Arrays.asList(3L, 1L), ids(snapshot.byAuthor("John Doe", PageRequest.of(0, 2, RATING_ORDER), new BookCursor(9, 2))));
+    }
+
+    @Test
+    @DisplayName("Should re-sort a key's books for other orders")
+    void sortsByOtherProperties() {
+        Sort byViews = Sort.by(Sort.Direction.DESC, "views").and(Sort.by(Sort.Direction.DESC, "id"));
+
+        assertEquals(Arrays.asList(2L, 3L, 1L), ids(snapshot.byAuthor("John Doe", PageRequest.of(0, 20, byViews), null)));
+        assertEquals(Arrays.asList(1L, 4L), ids(snapshot.byTitle("book 1")));
+    }
+
+    @Test
+    @DisplayName("Should hand out copies so callers cannot change the snapshot")
+    void handsOutCopies() {
+        snapshot.byTitle("Book 2").get(0).setRating(100);
+
+        assertEquals(9, snapshot.byTitle("Book 2").get(0).getRating());
+    }
+
+    @Test
+    @DisplayName("Should build once from the repository, announce the load and serve it only when enabled")
+    void storeRebuilds() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.findAll()).thenReturn(Arrays.asList(
+                new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 4)));
+        List<Object> events = new ArrayList<>();
+        CatalogSnapshotStore store = new CatalogSnapshotStore(bookRepository, mock(JdbcTemplate.class), ratingCounter(), events::add, true, "heap", "");
+        CatalogSnapshotStore disabled = new CatalogSnapshotStore(bookRepository, mock(JdbcTemplate.class), ratingCounter(), event -> { }, false, "heap", "");
+
+        assertEquals(null, store.current());
+        store.rebuild();
+        disabled.rebuild();
+
+        assertEquals(1, store.current().size());
+        assertEquals(null, disabled.current());
+        assertEquals(1, disabled.loaded().size());
+        assertEquals(1, events.size());
+        assertSame(store.loaded(), ((CatalogLoadedEvent) events.get(0)).getSnapshot());
+        verify(bookRepository, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should add flushed ratings in place and re-rank on them")
+    void storeAppliesRatings() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.findAll()).thenReturn(Arrays.asList(
+                new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 4),
+                new Books(2L, "Book 2", "John Doe", "2021-01-01", "100", "50", "link2", 9)));
+        CatalogSnapshotStore store = new CatalogSnapshotStore(bookRepository, mock(JdbcTemplate.class), ratingCounter(), event -> { }, true, "heap", "");
+        store.rebuild();
+        CatalogSnapshot before = store.current();
+
+        store.onRatingsFlushed(new RatingsFlushedEvent(this, Collections.singletonMap(1L, 10L)));
+
+        assertSame(before, store.current());
+        assertEquals(Arrays.asList(1L, 2L), ids(store.current().byAuthor("John Doe")));
+        assertEquals(14, store.current().byAuthor("John Doe").get(0).getRating());
+        verify(bookRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should read back the ratings flushed while a rebuild was scanning the table")
+    void storeReconcilesRatingsFlushedDuringRebuild() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CatalogSnapshotStore store = new CatalogSnapshotStore(bookRepository, jdbcTemplate, ratingCounter(), event -> { }, true, "heap", "");
+        Map<Long, Long> deltas = new HashMap<>();
+        deltas.put(1L, 10L);
+        deltas.put(2L, 10L);
+        // Book 1 was read before the flush committed, book 2 after it.
+        when(bookRepository.findAll()).thenAnswer(invocation -> {
+            store.onRatingsFlushed(new RatingsFlushedEvent(this, deltas));
+            return Arrays.asList(
+                    new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 4),
+                    new Books(2L, "Book 2", "John Doe", "2021-01-01", "100", "50", "link2", 19));
+        });
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rating(1L, 14));
+            handler.processRow(rating(2L, 19));
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT id, rating FROM books WHERE id IN"), any(RowCallbackHandler.class), any(), any());
+
+        store.rebuild();
+
+        assertEquals(Arrays.asList(2L, 1L), ids(store.current().byAuthor("John Doe")));
+        assertEquals(19, store.current().byTitle("Book 2").get(0).getRating());
+        assertEquals(14, store.current().byTitle("Book 1").get(0).getRating());
+    }
+
+    @Test
+    @DisplayName("Should encode the off-heap snapshot straight from the rows, growing past the expected size")
+    void storeStreamsColumns() throws SQLException {
+        BookRepository bookRepository = mock(BookRepository.class);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        List<ResultSet> rows = new ArrayList<>();
+        for (int i = 40; i > 0; i--) {
+            rows.add(row(i, "Book " + i, i % 2 == 0 ? "John Doe" : "Jane Roe", i));
+        }
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet row : rows) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        CatalogSnapshotStore store = new CatalogSnapshotStore(bookRepository, jdbcTemplate, ratingCounter(), event -> { }, true, "off-heap", "");
+
+        store.rebuild();
+
+        assertEquals(40, store.current().size());
+        assertEquals(Arrays.asList(40L, 38L), ids(store.current().byAuthor("john doe", PageRequest.of(0, 2, RATING_ORDER), null)));
+        assertEquals(Arrays.asList(7L), ids(store.current().byTitle("BOOK 7")));
+        assertEquals(YearMonth.of(2021, 3), store.current().byTitle("Book 7").get(0).getDate());
+        verify(bookRepository, never()).findAll();
+    }
+
+    private static ResultSet row(long id, String title, String author, int rating) throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(id);
+        when(row.getString("title")).thenReturn(title);
+        when(row.getString("author")).thenReturn(author);
+        when(row.getInt("date")).thenReturn(2021 * 12 + 2);
+        when(row.getString("link")).thenReturn("link" + id);
+        when(row.getInt("rating")).thenReturn(rating);
+        return row;
+    }
+
+    private static ResultSet rating(long id, int rating) throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(id);
+        when(row.getInt("rating")).thenReturn(rating);
+        return row;
+    }
+
+    private static RatingCounter ratingCounter() {
+        return new RatingCounter(mock(JdbcTemplate.class), event -> { }, new SimpleMeterRegistry(), 500);
+    }
+
+    private static List<Long> ids(List<Books> books) {
+        return books.stream().map(Books::getId).collect(Collectors.toList());
+    }
+}
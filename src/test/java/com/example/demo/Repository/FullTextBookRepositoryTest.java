@@ -0,0 +1,35 @@
+package com.example.demo.Repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FullTextBookRepositoryTest {
+
+    @Test
+    @DisplayName("Should strip boolean-mode operators from the match terms")
+    void termsDropOperators() {
+        assertEquals("java spring boot", FullTextBookRepository.terms(Arrays.asList("+Java", "Spring-Boot*")));
+    }
+
+    @Test
+    @DisplayName("Should map sort properties onto whitelisted columns")
+    void orderByUsesColumns() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id"));
+
+        assertEquals(" ORDER BY rating DESC, id DESC", FullTextBookRepository.orderBy(sort));
+        assertEquals("", FullTextBookRepository.orderBy(Sort.unsorted()));
+    }
+
+    @Test
+    @DisplayName("Should reject sort properties that are not columns")
+    void orderByRejectsUnknownProperty() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FullTextBookRepository.orderBy(Sort.by("rating; DROP TABLE books")));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Model.Books;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class FuzzyTitleIndexTest {
+
+    private CatalogSnapshot snapshot;
+
+    private FuzzyTitleIndex fuzzyTitleIndex;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.build(Arrays.asList(
+                new Books(1L, "Climate Action Now", "Jane Smith", "2021-01-01", "100", "50", "link1", 3),
+                new Books(2L, "How to Fix the Climate", "Jane Smith", "2021-02-01", "200", "100", "link2", 1),
+                new Books(3L, "Taking Action", "John Doe", "2021-03-01", "300", "150", "link3", 9),
+                new Books(4L, "Why We Sleep", "Matt Walker", "2019-04-01", "300", "150", "link4", 40)
+        ));
+        fuzzyTitleIndex = new FuzzyTitleIndex(mock(CatalogSnapshotStore.class), 200);
+        fuzzyTitleIndex.rebuild(snapshot);
+    }
+
+    @Test
+    @DisplayName("Should find titles despite typos, best covered title first")
+    void toleratesTypos() {
+        List<Long> ids = ids(fuzzyTitleIndex.search("climat acton", 0, 10));
+
+        assertEquals(1L, ids.get(0));
+        assertTrue(ids.containsAll(Arrays.asList(2L, 3L)));
+        assertEquals(Arrays.asList(4L), ids(fuzzyTitleIndex.search("slep", 0, 10)));
+    }
+
+    @Test
+    @DisplayName("Should rank an exact word above a misspelt one and page the ranking")
+    void ranksByCloseness() {
+        assertEquals(Arrays.asList(3L, 1L), ids(fuzzyTitleIndex.search("action", 0, 10)));
+        assertEquals(Arrays.asList(1L), ids(fuzzyTitleIndex.search("action", 1, 10)));
+        assertTrue(fuzzyTitleIndex.search("xyz", 0, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should hand out copies and break ties on the written-back ratings")
+    void followsFlushedRatings() {
+        fuzzyTitleIndex.search("slep", 0, 10).get(0).setRating(0);
+        assertEquals(40, fuzzyTitleIndex.search("slep", 0, 10).get(0).getRating());
+        assertEquals(Arrays.asList(1L, 2L), ids(fuzzyTitleIndex.search("climate", 0, 10)));
+
+        snapshot.apply(Collections.singletonMap(2L, 10L));
+
+        List<Books> result = fuzzyTitleIndex.search("climate", 0, 10);
+        assertEquals(Arrays.asList(2L, 1L), ids(result));
+        assertEquals(11, result.get(0).getRating());
+    }
+
+    @Test
+    @DisplayName("Should compute edit distance and stop once it exceeds the limit")
+    void boundedDistance() {
+        assertEquals(0, FuzzyTitleIndex.distance("climate", "climate", 2));
+        assertEquals(1, FuzzyTitleIndex.distance("climat", "climate", 2));
+        assertEquals(2, FuzzyTitleIndex.distance("clmiate", "climate", 2));
+        assertEquals(3, FuzzyTitleIndex.distance("weather", "climate", 2));
+        assertEquals(2, FuzzyTitleIndex.distance("acton", "actions", 1));
+    }
+
+    @Test
+    @DisplayName("Should allow fewer edits for shorter words")
+    void editsByLength() {
+        assertEquals(0, FuzzyTitleIndex.maxEdits(2));
+        assertEquals(1, FuzzyTitleIndex.maxEdits(5));
+        assertEquals(2, FuzzyTitleIndex.maxEdits(8));
+    }
+
+    private static List<Long> ids(List<Books> books) {
+        return books.stream().map(Books::getId).collect(Collectors.toList());
+    }
+}
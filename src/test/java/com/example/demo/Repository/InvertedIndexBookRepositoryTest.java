@@ -0,0 +1,132 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.Books;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class InvertedIndexBookRepositoryTest {
+
+    private BookRepository bookRepository;
+
+    private CatalogSnapshot snapshot;
+
+    private InvertedIndexBookRepository invertedIndexBookRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        snapshot = CatalogSnapshot.build(Arrays.asList(
+                new Books(1L, "Java Programming", "John Doe", "2021-01-01", "100", "50", "link1", 4),
+                new Books(2L, "Advanced Java", "Jane Smith", "2021-02-01", "200", "100", "link2", 9),
+                new Books(3L, "Python Basics", "John Doe", "2021-03-01", "300", "150", "link3", 1)
+        ));
+        invertedIndexBookRepository = new InvertedIndexBookRepository(bookRepository, mock(CatalogSnapshotStore.class));
+        invertedIndexBookRepository.rebuild(snapshot);
+    }
+
+    @Test
+    @DisplayName("Should match keywords case-insensitively and order by rating descending")
+    void findByKeywordsOrderedByRating() {
+        List<Books> result = invertedIndexBookRepository.findByKeywords(
+                Collections.singletonList("JAVA"), Sort.by(Sort.Direction.DESC, "rating"));
+
+        assertEquals(2, result.size());
+        assertEquals("Advanced Java", result.get(0).getTitle());
+        assertEquals("Java Programming", result.get(1).getTitle());
+    }
+
+    @Test
+    @DisplayName("Should return the union of all keywords, including author tokens")
+    void findByKeywordsUnion() {
+        List<Books> result = invertedIndexBookRepository.findByKeywords(
+                Arrays.asList("python", "smith"), Sort.by(Sort.Direction.ASC, "id"));
+
+        assertEquals(2, result.size());
+        assertEquals(2L, result.get(0).getId());
+        assertEquals(3L, result.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Should return an empty list when no token is indexed")
+    void findByKeywordsWhenNoMatch() {
+        List<Books> result = invertedIndexBookRepository.findByKeywords(
+                Collections.singletonList("fiction"), Sort.unsorted());
+
+        assertTrue(result.isEmpty());
+        assertEquals(3, invertedIndexBookRepository.size());
+    }
+
+    @Test
+    @DisplayName("Should return a bounded page and continue after a keyset cursor")
+    void findByKeywordsPagedAndAfterCursor() {
+        List<String> keywords = Arrays.asList("java", "python");
+
+        List<Books> firstPage = invertedIndexBookRepository.findByKeywords(keywords,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id"))));
+        List<Books> nextPage = invertedIndexBookRepository.findByKeywordsAfter(keywords, BookCursor.of(firstPage.get(1)), 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(2L, firstPage.get(0).getId());
+        assertEquals(1L, firstPage.get(1).getId());
+        assertEquals(1, nextPage.size());
+        assertEquals(3L, nextPage.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should rank exact title matches first and return every book once")
+    void findByTitleOrKeywordsRanksExactFirst() {
+        List<Books> result = invertedIndexBookRepository.findByTitleOrKeywords("java programming",
+                Arrays.asList("java", "programming"), PageRequest.of(0, 10));
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(2L, result.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Should stream title and keyword matches in the order of findByTitleOrKeywords and delegate authors")
+    void streamsMatches() {
+        Sort order = Sort.by(Sort.Direction.ASC, "id");
+        List<Long> ids = invertedIndexBookRepository.streamByTitleOrKeywords("advanced java",
+                Arrays.asList("advanced", "java"), order).map(Books::getId).collect(Collectors.toList());
+        Stream<Books> byAuthor = Stream.empty();
+        when(bookRepository.streamByAuthor("John Doe", order)).thenReturn(byAuthor);
+
+        assertEquals(Arrays.asList(2L, 1L), ids);
+        assertEquals(byAuthor, invertedIndexBookRepository.streamByAuthor("John Doe", order));
+    }
+
+    @Test
+    @DisplayName("Should hand out copies and reorder by the rating increments written back")
+    void followsFlushedRatings() {
+        Sort byRating = Sort.by(Sort.Direction.DESC, "rating");
+        invertedIndexBookRepository.findByKeywords(Collections.singletonList("java"), byRating).get(0).setRating(100);
+        Map<Long, Long> deltas = new HashMap<>();
+        deltas.put(1L, 6L);
+        deltas.put(99L, 1L);
+
+        assertEquals(9, invertedIndexBookRepository.findByKeywords(Collections.singletonList("java"), byRating).get(0).getRating());
+        snapshot.apply(deltas);
+
+        List<Books> result = invertedIndexBookRepository.findByKeywords(Collections.singletonList("java"), byRating);
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(10, result.get(0).getRating());
+        assertEquals(2L, result.get(1).getId());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Model.BookCursor;
+import com.example.demo.Model.Books;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapCatalogSnapshotTest {
+
+    private static final Sort RATING_ORDER = Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private final List<Books> books = Arrays.asList(
+            new Books(1L, "Book 1", "John Doe", YearMonth.of(2021, 10), 100, 50, "link1", 4),
+            new Books(2L, "Café ☕ 😀", "John Doe", YearMonth.of(2021, 10), 300, 10, null, 9),
+            new Books(3L, "book 1", "john doe", null, 200, 20, "link3", 4),
+            new Books(4L, null, "Zoë Ångström", YearMonth.of(2019, 4), 5, 1, "link4", 1),
+            new Books(5L, "Other", null, YearMonth.of(2019, 4), 5, 1, "link5", 7)
+    );
+
+    private final CatalogSnapshot heap = CatalogSnapshot.build(books);
+
+    private final CatalogSnapshot offHeap = CatalogSnapshot.offHeap(books);
+
+    @Test
+    @DisplayName("Should decode every column, including nulls and multi-byte text")
+    void decodesColumns() {
+        Books book = offHeap.byTitle("CAFÉ ☕ 😀").get(0);
+
+        assertEquals(2L, book.getId());
+        assertEquals("Café ☕ 😀", book.getTitle());
+        assertEquals("John Doe", book.getAuthor());
+        assertEquals(YearMonth.of(2021, 10), book.getDate());
+        assertEquals(300, book.getViews());
+        assertEquals(10, book.getLikes());
+        assertNull(book.getLink());
+        assertEquals(9, book.getRating());
+        assertNull(offHeap.byTitle("Book 1").get(0).getDate());
+        assertEquals("Zoë Ångström", offHeap.byAuthor("zoë ångström").get(0).getAuthor());
+        assertEquals("Zoë Ångström", offHeap.byAuthor(" ZOE  angstrom ").get(0).getAuthor());
+    }
+
+    @Test
+    @DisplayName("Should answer every lookup exactly like the heap layout")
+    void matchesHeapLayout() {
+        Sort byViews = Sort.by(Sort.Direction.DESC, "views").and(Sort.by(Sort.Direction.DESC, "id"));
+        for (String author : Arrays.asList("John Doe", "JOHN DOE", "Zoë Ångström", "zoe angstrom", "Nobody")) {
+            assertSame(heap.byAuthor(author), offHeap.byAuthor(author));
+            assertSame(heap.byAuthor(author, PageRequest.of(1, 1, RATING_ORDER), null), offHeap.byAuthor(author, PageRequest.of(1, 1, RATING_ORDER), null));
+            assertSame(heap.byAuthor(author, PageRequest.of(0, 5, byViews), null), offHeap.byAuthor(author, PageRequest.of(0, 5, byViews), null));
+            assertSame(heap.byAuthor(author, PageRequest.of(0, 5, RATING_ORDER), new BookCursor(4, 3)),
+                    offHeap.byAuthor(author, PageRequest.of(0, 5, RATING_ORDER), new BookCursor(4, 3)));
+        }
+        for (String title : Arrays.asList("Book 1", "other", "Café ☕ 😀", "Missing")) {
+            assertSame(heap.byTitle(title), offHeap.byTitle(title));
+        }
+        assertEquals(heap.size(), offHeap.size());
+        assertTrue(offHeap.byTitle("Missing").isEmpty());
+    }
+
+    private static void assertSame(List<Books> expected, List<Books> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Books e = expected.get(i);
+            Books a = actual.get(i);
+            assertEquals(Arrays.asList(e.getId(), e.getTitle(), e.getAuthor(), e.getDate(), e.getViews(), e.getLikes(), e.getLink(), e.getRating()),
+                    Arrays.asList(a.getId(), a.getTitle(), a.getAuthor(), a.getDate(), a.getViews(), a.getLikes(), a.getLink(), a.getRating()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.Service;
+
+import com.example.demo.Component.CatalogChangedEvent;
+import com.example.demo.Model.Books;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class BookLookupCacheTest {
+
+    private BookLookupCache bookLookupCache;
+
+    private AtomicInteger loads;
+
+    private Supplier<List<Books>> loader;
+
+    @BeforeEach
+    void setUp() {
+        bookLookupCache = new BookLookupCache(true, 1000, Duration.ofMinutes(10), Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+        List<Books> books = Arrays.asList(
+                new Books(1L, "Book 1", "Author 1", "2021-01-01", "100", "50", "link1", 5),
+                new Books(2L, "Book 2", "Author 1", "2021-02-01", "200", "100", "link2", 4));
+        loader = () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(books);
+        };
+    }
+
+    @Test
+    @DisplayName("Should load a lookup once and serve repeated requests from the cache")
+    void getReadsThrough() {
+        bookLookupCache.get(BookLookupCache.AUTHOR, "Author 1", PageRequest.of(0, 20), null, loader);
+        bookLookupCache.get(BookLookupCache.AUTHOR, "Author 1", PageRequest.of(0, 20), null, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, bookLookupCache.stats().hitCount());
+        assertEquals(1, bookLookupCache.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Should keep separate entries per page and lookup type")
+    void getKeysByPageAndKind() {
+        bookLookupCache.get(BookLookupCache.AUTHOR, "Author 1", PageRequest.of(0, 20), null, loader);
+        bookLookupCache.get(BookLookupCache.AUTHOR, "Author 1", PageRequest.of(1, 20), null, loader);
+        bookLookupCache.get(BookLookupCache.TITLE, "Author 1", PageRequest.of(0, 20), null, loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should hand out copies, so changing a result never reaches the cached entry")
+    void getReturnsCopies() {
+        List<Books> first = bookLookupCache.get(BookLookupCache.AUTHOR, "Author 1", PageRequest.of(0, 20), null, loader);
+        first.get(1).setRating(10);
+
+        List<Books> second = bookLookupCache.get(BookLookupCache.AUTHOR, "Author 1", PageRequest.of(0, 20), null, loader);
+
+        assertNotSame(first.get(0), second.get(0));
+        assertEquals(1L, second.get(0).getId());
+        assertEquals(4, second.get(1).getRating());
+    }
+
+    @Test
+    @DisplayName("Should drop every entry when the catalog changes")
+    void invalidatedOnCatalogChange() {
+        bookLookupCache.get(BookLookupCache.TITLE, "Book 1", PageRequest.of(0, 20), null, loader);
+
+        bookLookupCache.onCatalogChanged(new CatalogChangedEvent(this, 2));
+        bookLookupCache.get(BookLookupCache.TITLE, "Book 1", PageRequest.of(0, 20), null, loader);
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.demo.Service;
 
+import com.example.demo.Model.BookCursor;
 import com.example.demo.Model.Books;
+import com.example.demo.Repository.Bm25SearchIndex;
 import com.example.demo.Repository.BookRepository;
 import com.example.demo.Repository.BookRepositoryCustom;
+import com.example.demo.Repository.CatalogSnapshot;
+import com.example.demo.Repository.CatalogSnapshotStore;
+import com.example.demo.Repository.FuzzyTitleIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,11 +16,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -31,23 +41,40 @@ class BookServiceImplTest {
     @Mock
     private BookRepositoryCustom bookRepositoryCustom;
 
+    @Mock
+    private RatingCounter ratingCounter;
+
+    @Mock
+    private Bm25SearchIndex searchIndex;
+
+    @Mock
+    private FuzzyTitleIndex fuzzyTitleIndex;
+
+    @Mock
+    private CatalogSnapshotStore catalogSnapshotStore;
+
     @BeforeEach
     void setUp() {
         bookRepository = mock(BookRepository.class);
         bookRepositoryCustom = mock(BookRepositoryCustom.class);
-        bookServiceImpl = new BookServiceImpl(bookRepository, bookRepositoryCustom);
+        ratingCounter = mock(RatingCounter.class);
+        searchIndex = mock(Bm25SearchIndex.class);
+        fuzzyTitleIndex = mock(FuzzyTitleIndex.class);
+        catalogSnapshotStore = mock(CatalogSnapshotStore.class);
+        bookServiceImpl = new BookServiceImpl(bookRepository, bookRepositoryCustom, ratingCounter,
+                new BookLookupCache(false, 0, Duration.ZERO, Duration.ZERO), searchIndex, fuzzyTitleIndex, catalogSnapshotStore);
     }
 
     @Test
-    @DisplayName("Should increment the book rating by one and save the updated book")
+    @DisplayName("Should increment the book rating by one and buffer the update instead of saving")
     void incrementRating() {
         Books book = new Books(1L, "Book Title", "Author Name", "2021-01-01", "100", "50", "www.example.com", 4);
-        when(bookRepository.save(book)).thenReturn(book);
 
         bookServiceImpl.incrementRating(book);
 
         assertEquals(5, book.getRating());
-        verify(bookRepository, times(1)).save(book);
+        verify(ratingCounter, times(1)).increment(1L);
+        verify(bookRepository, never()).save(book);
     }
 
     @Test
@@ -56,12 +83,12 @@ class BookServiceImplTest {
         String author = "John Doe";
         Sort sort = Sort.by(Sort.Direction.DESC, "rating");
         List<Books> emptyList = new ArrayList<>();
-        when(bookRepository.findByAuthor(author, sort)).thenReturn(emptyList);
+        when(bookRepository.findByAuthorKey("john doe", sort)).thenReturn(emptyList);
 
         List<Books> result = bookServiceImpl.getBookByAuthor(author);
 
         assertEquals(emptyList, result);
-        verify(bookRepository, times(1)).findByAuthor(author, sort);
+        verify(bookRepository, times(1)).findByAuthorKey("john doe", sort);
         verifyNoMoreInteractions(bookRepository);
     }
 
@@ -73,7 +100,7 @@ class BookServiceImplTest {
                 new Books(2L, "Book 2", "Author 1", "2023-07-26", "200", "100", "link2", 4)
         );
 
-        when(bookRepository.findByAuthor(eq("Author 1"), any(Sort.class))).thenReturn(mockBooksList);
+        when(bookRepository.findByAuthorKey(eq("author 1"), any(Sort.class))).thenReturn(mockBooksList);
 
         List<Books> booksList = bookServiceImpl.getBookByAuthor("Author 1");
 
@@ -117,7 +144,7 @@ class BookServiceImplTest {
         assertEquals(4, book2.getRating());
 
         verify(bookRepository, times(1)).findByExactTitleMatch(title, sort);
-        verify(bookRepository, times(2)).save(any(Books.class));
+        verify(ratingCounter, times(2)).increment(anyLong());
     }
 
     @Test
@@ -157,7 +184,186 @@ class BookServiceImplTest {
         assertEquals(5, result.get(0).getRating());
         assertEquals(6, result.get(1).getRating());
 
-        verify(bookRepository, times(2)).save(any(Books.class));
+        verify(ratingCounter, times(2)).increment(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should push the page and the rating order down to the author query")
+    void getBookByAuthorPaged() {
+        Pageable expected = PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "id")));
+        List<Books> page = Arrays.asList(new Books(1L, "Book 1", "Author 1", "2023-07-26", "100", "50", "link1", 5));
+        when(bookRepository.findByAuthorKey("author 1", expected)).thenReturn(page);
+
+        List<Books> result = bookServiceImpl.getBookByAuthor("  AUTHOR   1 ", PageRequest.of(2, 10), null);
+
+        assertEquals(1, result.size());
+        assertEquals(6, result.get(0).getRating());
+        verify(ratingCounter, times(1)).increment(1L);
+    }
+
+    @Test
+    @DisplayName("Should use the keyset query when a cursor is given")
+    void getBookByExactTitleAfterCursor() {
+        String title = "Java Programming";
+        BookCursor cursor = new BookCursor(7, 42L);
+        when(bookRepository.findByExactTitleMatchAfter(title, 7, 42L, PageRequest.of(0, 10))).thenReturn(new ArrayList<>());
+
+        List<Books> result = bookServiceImpl.getBookByExactTitle(title, PageRequest.of(3, 10), cursor);
+
+        assertEquals(0, result.size());
+        verify(bookRepository, times(1)).findByExactTitleMatchAfter(title, 7, 42L, PageRequest.of(0, 10));
+        verify(bookRepository, never()).findByExactTitleMatch(eq(title), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should pass the cursor and page size to the keyword keyset query")
+    void getBookByKeywordAfterCursor() {
+        BookCursor cursor = BookCursor.valueOf("3:9");
+        List<String> keywords = Arrays.asList("java", "basics");
+        when(bookRepositoryCustom.findByKeywordsAfter(keywords, cursor, 5)).thenReturn(new ArrayList<>());
+
+        bookServiceImpl.getBookByKeyword("java basics", PageRequest.of(0, 5), cursor);
+
+        verify(bookRepositoryCustom, times(1)).findByKeywordsAfter(keywords, cursor, 5);
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Should run one combined query for the title search and increment each hit once")
+    void searchByTitleIncrementsEachHitOnce() {
+        String title = "Java Programming";
+        List<String> keywords = Arrays.asList("Java", "Programming");
+        Books exact = new Books(1L, "Java Programming", "John Doe", "2021-01-01", "100", "50", "link1", 4);
+        Books keyword = new Books(2L, "Advanced Java", "Jane Smith", "2021-02-01", "200", "100", "link2", 9);
+        when(bookRepositoryCustom.findByTitleOrKeywords(title, keywords, PageRequest.of(0, 20))).thenReturn(Arrays.asList(exact, keyword));
+
+        List<Books> result = bookServiceImpl.searchByTitle(title, PageRequest.of(0, 20), null);
+
+        assertEquals(2, result.size());
+        assertEquals(5, exact.getRating());
+        assertEquals(10, keyword.getRating());
+        verify(ratingCounter, times(1)).increment(1L);
+        verify(ratingCounter, times(1)).increment(2L);
+        verify(bookRepository, never()).findByExactTitleMatch(anyString(), any(Sort.class));
+    }
+
+
+    @Test
+    @DisplayName("Should serve relevance-ordered searches from the BM25 index")
+    void searchByTitleByRelevance() {
+        Books hit = new Books(1L, "Java Programming", "John Doe", "2021-01-01", "100", "50", "link1", 4);
+        List<String> keywords = Arrays.asList("java", "programming");
+        Pageable byRelevance = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "relevance").and(Sort.by(Sort.Direction.DESC, "id")));
+        when(searchIndex.searchByTitleOrKeywords("java programming", keywords, 10L, 10)).thenReturn(new ArrayList<>(Arrays.asList(hit)));
+
+        List<Books> result = bookServiceImpl.searchByTitle("java programming", byRelevance, null);
+
+        assertEquals(1, result.size());
+        assertEquals(5, hit.getRating());
+        verifyNoInteractions(bookRepositoryCustom);
+    }
+
+    @Test
+    @DisplayName("Should page typo-tolerant searches through the fuzzy index and count each hit")
+    void getBookByFuzzyTitle() {
+        Books hit = new Books(1L, "Climate Action", "John Doe", "2021-01-01", "100", "50", "link1", 4);
+        when(fuzzyTitleIndex.search("climat acton", 20L, 20)).thenReturn(new ArrayList<>(Arrays.asList(hit)));
+
+        List<Books> result = bookServiceImpl.getBookByFuzzyTitle("climat acton", PageRequest.of(1, 20));
+
+        assertEquals(Arrays.asList(hit), result);
+        assertEquals(5, hit.getRating());
+        verify(ratingCounter, times(1)).increment(1L);
+    }
+
+    @Test
+    @DisplayName("Should resolve many authors with one IN query and group the books per author in request order")
+    void getBooksByAuthors() {
+        Books first = new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 9);
+        Books second = new Books(2L, "Book 2", "Jane Smith", "2021-01-01", "100", "50", "link2", 7);
+        Books third = new Books(3L, "Book 3", "John Doe", "2021-01-01", "100", "50", "link3", 5);
+        when(bookRepository.findByAuthorKeyIn(anyCollection())).thenReturn(Arrays.asList(first, second, third));
+
+        Map<String, List<Books>> result = bookServiceImpl.getBooksByAuthors(
+                Arrays.asList("jane smith", "John Doe", "Nobody", "John Doe"), 1);
+
+        verify(bookRepository, times(1)).findByAuthorKeyIn(Arrays.asList("jane smith", "john doe", "nobody"));
+        assertEquals(Arrays.asList("jane smith", "John Doe", "Nobody"), new ArrayList<>(result.keySet()));
+        assertEquals(Arrays.asList(second), result.get("jane smith"));
+        assertEquals(Arrays.asList(first), result.get("John Doe"));
+        assertEquals(Arrays.asList(), result.get("Nobody"));
+        verify(ratingCounter, times(1)).increment(1L);
+        verify(ratingCounter, times(1)).increment(2L);
+        verify(ratingCounter, never()).increment(3L);
+    }
+
+    @Test
+    @DisplayName("Should split long title batches into bounded IN lists and skip the query when nothing is asked")
+    void getBooksByExactTitlesInChunks() {
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < BookServiceImpl.IN_CHUNK_SIZE + 1; i++) {
+            titles.add("Title " + i);
+        }
+        when(bookRepository.findByExactTitleIn(anyCollection())).thenReturn(new ArrayList<>());
+
+        Map<String, List<Books>> result = bookServiceImpl.getBooksByExactTitles(titles, 20);
+        bookServiceImpl.getBooksByExactTitles(new ArrayList<>(), 20);
+
+        assertEquals(titles.size(), result.size());
+        verify(bookRepository, times(2)).findByExactTitleIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should hand every streamed book to the sink, count it, and close the stream")
+    void streamBookByAuthor() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "rating");
+        Books first = new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 9);
+        Books second = new Books(2L, "Book 2", "John Doe", "2021-01-01", "100", "50", "link2", 5);
+        boolean[] closed = {false};
+        when(bookRepository.streamByAuthor("John Doe", sort))
+                .thenReturn(Stream.of(first, second).onClose(() -> closed[0] = true));
+        List<Books> written = new ArrayList<>();
+
+        bookServiceImpl.streamBookByAuthor("John Doe", sort, written::add);
+
+        assertEquals(Arrays.asList(first, second), written);
+        assertEquals(true, closed[0]);
+        verify(ratingCounter, times(1)).increment(1L);
+        verify(ratingCounter, times(1)).increment(2L);
+    }
+
+    @Test
+    @DisplayName("Should stream title searches from the search repository with the split keywords")
+    void streamByTitle() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "views");
+        Books hit = new Books(1L, "Java Programming", "John Doe", "2021-01-01", "100", "50", "link1", 4);
+        when(bookRepositoryCustom.streamByTitleOrKeywords("Java Programming", Arrays.asList("Java", "Programming"), sort))
+                .thenReturn(Stream.of(hit));
+        List<Books> written = new ArrayList<>();
+
+        bookServiceImpl.streamByTitle("Java Programming", sort, written::add);
+
+        assertEquals(Arrays.asList(hit), written);
+        verify(ratingCounter, times(1)).increment(1L);
+    }
+
+    @Test
+    @DisplayName("Should serve author, title and batch lookups from the snapshot once it is built")
+    void servesFromSnapshot() {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(Arrays.asList(
+                new Books(1L, "Book 1", "John Doe", "2021-01-01", "100", "50", "link1", 4),
+                new Books(2L, "Book 2", "John Doe", "2021-01-01", "100", "50", "link2", 9)));
+        when(catalogSnapshotStore.current()).thenReturn(snapshot);
+
+        List<Books> byAuthor = bookServiceImpl.getBookByAuthor("John Doe", PageRequest.of(0, 20), null);
+        List<Books> byTitle = bookServiceImpl.getBookByExactTitle("Book 1", PageRequest.of(0, 20), null);
+        Map<String, List<Books>> batch = bookServiceImpl.getBooksByAuthors(Arrays.asList("john doe"), 1);
+
+        assertEquals(Arrays.asList(2L, 1L), Arrays.asList(byAuthor.get(0).getId(), byAuthor.get(1).getId()));
+        assertEquals(10, byAuthor.get(0).getRating());
+        assertEquals(1L, byTitle.get(0).getId());
+        assertEquals(1, batch.get("john doe").size());
+        assertEquals(2L, batch.get("john doe").get(0).getId());
+        verifyNoInteractions(bookRepository);
+        verify(ratingCounter, times(2)).increment(2L);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogImportProgressTest {
+
+    @Test
+    @DisplayName("Should turn ready once the configured fraction of the total is done and loaded")
+    void readyPastThreshold() {
+        CatalogImportProgress progress = new CatalogImportProgress(0.5);
+        assertTrue(progress.isReady());
+
+        progress.start();
+        assertFalse(progress.isReady());
+        progress.total(10);
+        progress.advance(4);
+        assertFalse(progress.pastReadyFraction());
+        progress.advance(5);
+        assertTrue(progress.pastReadyFraction());
+        assertFalse(progress.isReady());
+        progress.partialLoaded();
+        assertTrue(progress.isReady());
+
+        progress.start();
+        assertFalse(progress.isReady());
+    }
+
+    @Test
+    @DisplayName("Should wait for completion with the default threshold and stay unready after a failure")
+    void readyOnCompletion() {
+        CatalogImportProgress progress = new CatalogImportProgress(1.0);
+        progress.start();
+        progress.total(10);
+        progress.advance(10);
+        assertFalse(progress.pastReadyFraction());
+        assertFalse(progress.isReady());
+        progress.complete(10);
+        assertTrue(progress.isReady());
+
+        progress.start();
+        progress.fail(new IllegalStateException("boom"));
+        assertFalse(progress.isReady());
+    }
+}
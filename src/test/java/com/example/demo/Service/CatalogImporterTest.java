@@ -0,0 +1,313 @@
+package com.example.demo.Service;
+
+import com.example.demo.Component.CatalogChangedEvent;
+import com.example.demo.Model.Books;
+import com.opencsv.CSVReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class CatalogImporterTest {
+
+    private EntityManager entityManager;
+
+    private PlatformTransactionManager transactionManager;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CatalogCheckpoints checkpoints;
+
+    private CatalogImporter catalogImporter;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        checkpoints = mock(CatalogCheckpoints.class);
+        catalogImporter = new CatalogImporter(transactionManager, eventPublisher, jdbcTemplate, checkpoints,
+                new ParallelCsvParser(2, 1024, 4, 100), 2, 4);
+        ReflectionTestUtils.setField(catalogImporter, "entityManager", entityManager);
+    }
+
+    @Test
+    @DisplayName("Should map a CSV row to a book and parse a numeric rating")
+    void toBookWithRating() {
+        Books book = CatalogImporter.toBook(new String[]{"Title", "Author", "Dec-21", "100", "50", "link", "7"});
+
+        assertEquals("Title", book.getTitle());
+        assertEquals("Author", book.getAuthor());
+        assertEquals("link", book.getLink());
+        assertEquals(YearMonth.of(2021, 12), book.getDate());
+        assertEquals(100L, book.getViews());
+        assertEquals(50, book.getLikes());
+        assertEquals(7, book.getRating());
+    }
+
+    @Test
+    @DisplayName("Should tolerate rows without a rating column")
+    void toBookWithoutRating() {
+        Books book = CatalogImporter.toBook(new String[]{"Title", "Author", "Dec-21", "100", "50", "link"});
+
+        assertEquals(0, book.getRating());
+        assertEquals("link", book.getLink());
+    }
+
+    @Test
+    @DisplayName("Should persist every row, flushing per batch and committing per chunk")
+    void importsInChunks() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            csv.append("Title ").append(i).append(",Author,Dec-21,100,50,link").append(i).append(",\n");
+        }
+
+        ImportStats stats = catalogImporter.importChanges(new CSVReader(new StringReader(csv.toString())));
+
+        assertEquals(10, stats.getRows());
+        verify(entityManager, times(10)).persist(any(Books.class));
+        verify(entityManager, times(3)).clear();
+        verify(transactionManager, times(3)).commit(any());
+        verify(eventPublisher, times(1)).publishEvent(any(CatalogChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should insert new rows, update changed rows and skip unchanged ones")
+    void importChangesUpsertsByRowKey() throws Exception {
+        String[] unchanged = {"Same", "Author", "Dec-21", "100", "50", "link1", "3"};
+        String[] changed = {"Changed", "Author", "Dec-21", "100", "50", "link2", "3"};
+        knownRows(
+                new Object[]{1L, CatalogFingerprint.rowKey("Same", "Author"), CatalogFingerprint.rowHash(unchanged)},
+                new Object[]{2L, CatalogFingerprint.rowKey("Changed", "Author"), 42L});
+        String csv = "Same,Author,Dec-21,100,50,link1,3\n"
+                + "Changed,Author,Dec-21,999,50,link2,3\n"
+                + "New,Author,Dec-21,1,1,link3,0\n";
+
+        ImportStats stats = catalogImporter.importChanges(new CSVReader(new StringReader(csv)));
+
+        assertEquals(3, stats.getRows());
+        assertEquals(1, stats.getInserted());
+        assertEquals(1, stats.getUpdated());
+        assertEquals(1, stats.getUnchanged());
+        verify(entityManager, times(1)).persist(argThat(book -> ((Books) book).getTitle().equals("New")));
+        List<Object[]> updates = capturedUpdates();
+        assertEquals(1, updates.size());
+        assertEquals(999L, updates.get(0)[3]);
+        assertEquals("author", updates.get(0)[6]);
+        assertNull(updates.get(0)[8]);
+        assertEquals(2L, updates.get(0)[9]);
+        verify(eventPublisher).publishEvent(any(CatalogChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should keep the row that comes last in the file when duplicates arrive out of order")
+    void importChangesResolvesDuplicatesByPosition() throws Exception {
+        String[][] rows = {
+                {"Dup", "Author", "Dec-21", "2", "50", "last", "5"},
+                {"Dup", "Author", "Dec-21", "1", "50", "first", "9"},
+                {"Known", "Author", "Dec-21", "2", "50", "last", "5"},
+                {"Known", "Author", "Dec-21", "1", "50", "first", "9"}};
+        long[] positions = {300, 100, 400, 200};
+        knownRows(new Object[]{7L, CatalogFingerprint.rowKey("Known", "Author"), 42L});
+
+        ImportStats stats = catalogImporter.importChanges(new CatalogRows() {
+            private int next;
+
+            @Override
+            public String[] next() {
+                return next < rows.length ? rows[next++] : null;
+            }
+
+            @Override
+            public long position() {
+                return positions[next - 1];
+            }
+        });
+
+        assertEquals(1, stats.getInserted());
+        assertEquals(1, stats.getUpdated());
+        assertEquals(2, stats.getUnchanged());
+        verify(entityManager).persist(argThat(book -> "last".equals(((Books) book).getLink()) && ((Books) book).getRating() == 5));
+        List<Object[]> updates = capturedUpdates();
+        assertEquals(1, updates.size());
+        assertEquals("last", updates.get(0)[5]);
+        assertNull(updates.get(0)[8]);
+        assertEquals(7L, updates.get(0)[9]);
+    }
+
+    @Test
+    @DisplayName("Should update a book by id when it repeats after its insert was written")
+    void importChangesUpdatesWrittenInsert() throws Exception {
+        long[] nextId = {100};
+        doAnswer(invocation -> {
+            ((Books) invocation.getArgument(0)).setId(nextId[0]++);
+            return null;
+        }).when(entityManager).persist(any(Books.class));
+        String[][] rows = {
+                {"Dup", "Author", "Dec-21", "1", "50", "first", "9"},
+                {"A", "Author", "Dec-21", "1", "50", "a", "1"},
+                {"B", "Author", "Dec-21", "1", "50", "b", "1"},
+                {"C", "Author", "Dec-21", "1", "50", "c", "1"},
+                {"Dup", "Author", "Dec-21", "2", "50", "last", "5"}};
+
+        ImportStats stats = catalogImporter.importChanges(new CatalogRows() {
+            private int next;
+
+            @Override
+            public String[] next() {
+                return next < rows.length ? rows[next++] : null;
+            }
+        });
+
+        assertEquals(4, stats.getInserted());
+        assertEquals(1, stats.getUpdated());
+        List<Object[]> updates = capturedUpdates();
+        assertEquals(1, updates.size());
+        assertEquals("last", updates.get(0)[5]);
+        assertEquals(5, updates.get(0)[8]);
+        assertEquals(100L, updates.get(0)[9]);
+    }
+
+    @Test
+    @DisplayName("Should match existing rows regardless of case and surrounding spaces")
+    void rowKeyIsNormalised() {
+        assertEquals(CatalogFingerprint.rowKey("Java Basics", "John Doe"), CatalogFingerprint.rowKey(" java basics ", "JOHN DOE"));
+    }
+
+    @Test
+    @DisplayName("Should ignore the rating column when fingerprinting a row")
+    void rowHashIgnoresRating() {
+        assertEquals(CatalogFingerprint.rowHash(new String[]{"T", "A", "Dec-21", "1", "2", "l", "3"}),
+                CatalogFingerprint.rowHash(new String[]{"T", "A", "Dec-21", "1", "2", "l", "9"}));
+    }
+
+    @Test
+    @DisplayName("Should skip a source whose checksum matches the last checkpoint")
+    void importIfChangedSkipsUnchangedSource() throws Exception {
+        byte[] csv = "Title,Author,Dec-21,100,50,link,\n".getBytes(StandardCharsets.UTF_8);
+        when(checkpoints.checksumFor("data.csv"))
+                .thenReturn(Optional.of(CatalogFingerprint.checksum(new ByteArrayInputStream(csv))));
+
+        ImportStats stats = catalogImporter.importIfChanged("data.csv", new ByteArrayResource(csv));
+
+        assertEquals(0, stats.getRows());
+        verifyNoInteractions(entityManager, jdbcTemplate);
+        verify(checkpoints, never()).record(anyString(), anyString(), anyLong());
+        verify(eventPublisher).publishEvent(any(CatalogChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should import a changed source and record its checkpoint")
+    void importIfChangedRecordsCheckpoint() throws Exception {
+        byte[] csv = "Title,Author,Dec-21,100,50,link,\n".getBytes(StandardCharsets.UTF_8);
+        when(checkpoints.checksumFor("data.csv")).thenReturn(Optional.of("stale"));
+
+        ImportStats stats = catalogImporter.importIfChanged("data.csv", new ByteArrayResource(csv));
+
+        assertEquals(1, stats.getInserted());
+        verify(entityManager).persist(any(Books.class));
+        verify(checkpoints).record("data.csv", CatalogFingerprint.checksum(new ByteArrayInputStream(csv)), 1L);
+    }
+
+    @Test
+    @DisplayName("Should report rows, total and completion to the import progress")
+    void importIfChangedReportsProgress() throws Exception {
+        byte[] csv = "Title,Author,Dec-21,100,50,link,\nOther,Author,Dec-21,1,2,link,\n".getBytes(StandardCharsets.UTF_8);
+        when(checkpoints.checksumFor("data.csv")).thenReturn(Optional.empty());
+        CatalogImportProgress progress = new CatalogImportProgress(1.0);
+
+        catalogImporter.importIfChanged("data.csv", new ByteArrayResource(csv), progress);
+
+        assertEquals(CatalogImportProgress.State.COMPLETE, progress.getState());
+        assertEquals(2, progress.getRows());
+        assertEquals(2, progress.getTotalRows());
+        assertTrue(progress.isReady());
+    }
+
+    @Test
+    @DisplayName("Should load the rows written so far once past the ready fraction, then turn ready")
+    void importIfChangedLoadsPartialCatalog() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            csv.append("Title ").append(i).append(",Author,Dec-21,100,50,link,\n");
+        }
+        when(checkpoints.checksumFor("data.csv")).thenReturn(Optional.empty());
+        CatalogImportProgress progress = new CatalogImportProgress(0.5);
+        List<Boolean> readyWhenPublished = new ArrayList<>();
+        doAnswer(invocation -> readyWhenPublished.add(progress.isReady()))
+                .when(eventPublisher).publishEvent(any(CatalogChangedEvent.class));
+
+        catalogImporter.importIfChanged("data.csv", new ByteArrayResource(csv.toString().getBytes(StandardCharsets.UTF_8)), progress);
+
+        ArgumentCaptor<CatalogChangedEvent> events = ArgumentCaptor.forClass(CatalogChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(4, events.getAllValues().get(0).getRows());
+        assertNull(events.getAllValues().get(0).getSourceChecksum());
+        assertNotNull(events.getAllValues().get(1).getSourceChecksum());
+        assertEquals(Arrays.asList(false, true), readyWhenPublished);
+        assertTrue(progress.isReady());
+    }
+
+    @Test
+    @DisplayName("Should leave the import progress failed and unready when the import throws")
+    void importIfChangedRecordsFailure() {
+        byte[] csv = "Title,Author,Dec-21,100,50,link,\n".getBytes(StandardCharsets.UTF_8);
+        when(checkpoints.checksumFor("data.csv")).thenThrow(new IllegalStateException("database unavailable"));
+        CatalogImportProgress progress = new CatalogImportProgress(1.0);
+
+        assertThrows(IllegalStateException.class,
+                () -> catalogImporter.importIfChanged("data.csv", new ByteArrayResource(csv), progress));
+
+        assertEquals(CatalogImportProgress.State.FAILED, progress.getState());
+        assertFalse(progress.isReady());
+    }
+
+    private void knownRows(Object[]... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("id")).thenReturn((Long) row[0]);
+                when(rs.getString("row_key")).thenReturn((String) row[1]);
+                when(rs.getLong("row_hash")).thenReturn((Long) row[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> capturedUpdates() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(CatalogImporter.UPDATE_SQL), captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ParallelCsvParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should parse quoted fields with commas, escaped quotes and line breaks")
+    void parsesQuotedFields() throws IOException {
+        Path csv = write("\"Hello, \"\"World\"\"\",Author,Dec-21,1,2,link,\r\n\"Two\nLines\",Author,Dec-21,1,2,link,3\n");
+
+        List<String[]> rows = readAll(new ParallelCsvParser(1, 1024, 4, 10), csv);
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"Hello, \"World\"", "Author", "Dec-21", "1", "2", "link", ""}, rows.get(0));
+        assertArrayEquals(new String[]{"Two\nLines", "Author", "Dec-21", "1", "2", "link", "3"}, rows.get(1));
+    }
+
+    @Test
+    @DisplayName("Should cut chunks only at record boundaries, even inside quoted line breaks")
+    void splitsAtRecordBoundaries() throws IOException {
+        StringBuilder content = new StringBuilder("\uFEFF");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String title = i % 5 == 0 ? "Title \"" + i + "\",\nmore" : "Title " + i;
+            content.append(i % 5 == 0 ? "\"" + title.replace("\"", "\"\"") + "\"" : title)
+                    .append(",Autor é,Dec-21,1,2,link").append(i).append(",\n");
+            expected.add(title);
+        }
+        Path csv = write(content.toString());
+
+        // Chunks far smaller than a record force every cut through the middle of one
+        List<String[]> rows = readAll(new ParallelCsvParser(4, 7, 2, 16), csv);
+
+        List<String> titles = new ArrayList<>();
+        for (String[] row : rows) {
+            assertEquals(7, row.length);
+            assertEquals("Autor é", row[1]);
+            titles.add(row[0]);
+        }
+        Collections.sort(titles);
+        Collections.sort(expected);
+        assertEquals(expected, titles);
+    }
+
+    @Test
+    @DisplayName("Should skip blank lines and return nothing for an empty file")
+    void skipsBlankLines() throws IOException {
+        assertEquals(1, readAll(new ParallelCsvParser(2, 4, 2, 10), write("\n\nTitle,Author\n\n")).size());
+        assertEquals(0, readAll(new ParallelCsvParser(2, 4, 2, 10), write("")).size());
+    }
+
+    @Test
+    @DisplayName("Should stream resources that are not files through OpenCSV")
+    void streamsNonFileResources() throws IOException {
+        ByteArrayResource resource = new ByteArrayResource("Title,Author,Dec-21,1,2,link,\n".getBytes(StandardCharsets.UTF_8));
+
+        try (CatalogRows rows = new ParallelCsvParser(2, 1024, 4, 10).open(resource)) {
+            assertEquals(Arrays.asList("Title", "Author", "Dec-21", "1", "2", "link", ""), Arrays.asList(rows.next()));
+            assertNull(rows.next());
+        }
+    }
+
+    @Test
+    @DisplayName("Should report the file offset each row starts at")
+    void reportsRowPositions() throws IOException {
+        Path csv = write("A,1\n\"B\nB\",2\nC,3\n");
+        List<Long> positions = new ArrayList<>();
+
+        try (CatalogRows rows = new ParallelCsvParser(3, 2, 2, 1).open(csv)) {
+            while (rows.next() != null) {
+                positions.add(rows.position());
+            }
+        }
+
+        Collections.sort(positions);
+        assertEquals(Arrays.asList(0L, 4L, 12L), positions);
+    }
+
+    @Test
+    @DisplayName("Should read backslashes and a byte order mark the same way on both paths")
+    void openCsvMatchesParallelParser() throws IOException {
+        String content = "\uFEFF\"Say \\\"\"hi\"\"\",C:\\books\\,Dec-21,1,2,link,\n";
+        Path csv = write(content);
+
+        List<String[]> parsed = readAll(new ParallelCsvParser(1, 1024, 4, 10), csv);
+        try (CatalogRows rows = new ParallelCsvParser(1, 1024, 4, 10)
+                .open(new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)))) {
+            String[] streamed = rows.next();
+
+            assertArrayEquals(new String[]{"Say \\\"hi\"", "C:\\books\\", "Dec-21", "1", "2", "link", ""}, parsed.get(0));
+            assertArrayEquals(parsed.get(0), streamed);
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path csv = Files.createTempFile(tempDir, "catalog", ".csv");
+        Files.write(csv, content.getBytes(StandardCharsets.UTF_8));
+        return csv;
+    }
+
+    private static List<String[]> readAll(ParallelCsvParser parser, Path csv) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (CatalogRows catalogRows = parser.open(csv)) {
+            String[] row;
+            while ((row = catalogRows.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
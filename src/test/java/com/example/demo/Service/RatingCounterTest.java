@@ -0,0 +1,122 @@
+package com.example.demo.Service;
+
+import com.example.demo.Component.RatingsFlushedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class RatingCounterTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RatingCounter ratingCounter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ratingCounter = new RatingCounter(jdbcTemplate, eventPublisher, meterRegistry, 500);
+    }
+
+    @Test
+    @DisplayName("Should coalesce increments per book into a single batched update")
+    @SuppressWarnings("unchecked")
+    void flushCoalescesIncrements() {
+        ratingCounter.increment(1L);
+        ratingCounter.increment(1L);
+        ratingCounter.increment(1L);
+        ratingCounter.increment(2L);
+
+        int written = ratingCounter.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(RatingCounter.UPDATE_SQL), captor.capture());
+        assertEquals(2, written);
+        assertEquals(2, captor.getValue().size());
+        assertEquals(0, ratingCounter.pendingFor(1L));
+        assertEquals(0, meterRegistry.get("catalog.rating.pending.books").gauge().value());
+        assertEquals(4, meterRegistry.counter("catalog.rating.increments").count());
+        assertEquals(2, meterRegistry.counter("catalog.rating.writes").count());
+        ArgumentCaptor<RatingsFlushedEvent> event = ArgumentCaptor.forClass(RatingsFlushedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(3L, event.getValue().getDeltas().get(1L));
+        assertEquals(1L, event.getValue().getDeltas().get(2L));
+    }
+
+    @Test
+    @DisplayName("Should not issue any statement when nothing is pending")
+    void flushWithNothingPending() {
+        assertEquals(0, ratingCounter.flush());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should flush what is pending when stopped, after the web server")
+    void stopFlushes() {
+        ratingCounter.start();
+        ratingCounter.increment(1L);
+
+        ratingCounter.stop();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(RatingCounter.UPDATE_SQL), anyList());
+        verify(eventPublisher).publishEvent(any(RatingsFlushedEvent.class));
+        assertEquals(0, ratingCounter.pendingFor(1L));
+        assertFalse(ratingCounter.isRunning());
+        assertTrue(ratingCounter.getPhase() < SmartLifecycle.DEFAULT_PHASE - 1);
+    }
+
+    @Test
+    @DisplayName("Should keep the increments for the next flush when the update fails")
+    @SuppressWarnings("unchecked")
+    void flushRetriesAfterFailure() {
+        ratingCounter.increment(7L);
+        ratingCounter.increment(7L);
+        when(jdbcTemplate.batchUpdate(eq(RatingCounter.UPDATE_SQL), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertEquals(0, ratingCounter.flush());
+        assertEquals(2, ratingCounter.pendingFor(7L));
+        verifyNoInteractions(eventPublisher);
+
+        reset(jdbcTemplate);
+        assertEquals(1, ratingCounter.flush());
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(RatingCounter.UPDATE_SQL), captor.capture());
+        assertArrayEquals(new Object[]{2L, 7L}, captor.getValue().get(0));
+    }
+
+    @Test
+    @DisplayName("Should carry increments made while a flush is writing over to the next flush")
+    void flushKeepsConcurrentIncrements() {
+        ratingCounter.increment(3L);
+        ratingCounter.increment(3L);
+        when(jdbcTemplate.batchUpdate(eq(RatingCounter.UPDATE_SQL), anyList())).thenAnswer(invocation -> {
+            ratingCounter.increment(3L);
+            return new int[]{1};
+        });
+
+        assertEquals(1, ratingCounter.flush());
+
+        assertEquals(1, ratingCounter.pendingFor(3L));
+        assertEquals(1, meterRegistry.get("catalog.rating.pending.books").gauge().value());
+    }
+}
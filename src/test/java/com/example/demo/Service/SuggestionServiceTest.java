@@ -0,0 +1,72 @@
+package com.example.demo.Service;
+
+import com.example.demo.Model.Books;
+import com.example.demo.Model.Suggestion;
+import com.example.demo.Repository.CatalogSnapshot;
+import com.example.demo.Repository.CatalogSnapshotStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class SuggestionServiceTest {
+
+    private SuggestionService suggestionService;
+
+    @BeforeEach
+    void setUp() {
+        CatalogSnapshotStore catalogSnapshotStore = mock(CatalogSnapshotStore.class);
+        when(catalogSnapshotStore.loaded()).thenReturn(CatalogSnapshot.build(Arrays.asList(
+                new Books(1L, "How to Fix the Climate", "Jane Smith", "2021-02-01", "200", "100", "link1", 5),
+                new Books(2L, "Climate Change", "John Doe", "2021-03-01", "300", "150", "link2", 9),
+                new Books(3L, "Cloud Atlas", "Clémence Dupont", "2021-04-01", "300", "150", "link3", 7),
+                new Books(4L, "Climate Change", "John Doe", "2021-03-01", "300", "150", "link4", 2)
+        )));
+        suggestionService = new SuggestionService(catalogSnapshotStore, 3);
+        suggestionService.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should suggest titles and authors by prefix, best rated first")
+    void suggestsByPrefix() {
+        List<String> result = texts(suggestionService.suggest("cl", 10));
+
+        assertEquals(Arrays.asList("Climate Change", "Cloud Atlas", "Clémence Dupont"), result);
+    }
+
+    @Test
+    @DisplayName("Should match the start of later words, ignoring case and accents")
+    void matchesWordStartsAndFoldsCase() {
+        assertEquals(Arrays.asList("Climate Change", "How to Fix the Climate"), texts(suggestionService.suggest("CLIMATE", 10)));
+        assertEquals(Arrays.asList("Clémence Dupont"), texts(suggestionService.suggest("clem", 10)));
+        assertEquals(Arrays.asList("How to Fix the Climate"), texts(suggestionService.suggest("fix the", 10)));
+    }
+
+    @Test
+    @DisplayName("Should list a repeated title once and cap results at the configured maximum")
+    void deduplicatesAndCaps() {
+        List<Suggestion> result = suggestionService.suggest("c", 50);
+
+        assertEquals(3, result.size());
+        assertEquals(1, result.stream().filter(s -> s.getText().equals("Climate Change")).count());
+        assertEquals(9, result.get(0).getRating());
+    }
+
+    @Test
+    @DisplayName("Should return nothing for blank or unknown prefixes")
+    void emptyForUnknownPrefix() {
+        assertTrue(suggestionService.suggest("  ", 10).isEmpty());
+        assertTrue(suggestionService.suggest("xyz", 10).isEmpty());
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getText).collect(Collectors.toList());
+    }
+}